@@ -1,5 +1,6 @@
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 
 public class ConvertController {
@@ -16,4 +17,7 @@ public class ConvertController {
     @FXML
     Button btn;
 
+    @FXML
+    Label verdict;
+
 }
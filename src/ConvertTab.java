@@ -1,6 +1,9 @@
 import machines.Machine;
-import machines.convert.Convert;
-import machines.parser.ParseVerdict;
+import machines.MachineCache;
+import machines.MachineImage;
+import machines.MachineType;
+import machines.convert.ConvertPipeline;
+import misc.LiveLabel;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -11,24 +14,46 @@ class ConvertTab {
 
     private ConvertController cc;
 
+    private LiveLabel verdict;
+
     ConvertTab(ConvertController cc) {
         this.cc = cc;
+        verdict = new LiveLabel(cc.verdict);
     }
 
     void postInit() {
         cc.btn.setOnMouseClicked(event -> {
             try {
                 Path from = Path.of(cc.from.getText());
-                String content = Files.readString(from);
-                String code = cc.code.getText();
-                Machine m = Convert.init(code);
-                ParseVerdict parseVerdict = m.parse(content);
-                parseVerdict.throwFirstError();
-                Machine converted = Convert.convert(m, code);
+                String pipeline = cc.code.getText();
+                Machine m;
+                String key;
+                if (MachineImage.isImage(from)) {
+                    m = MachineImage.read(from);
+                    MachineType expected = ConvertPipeline.sourceType(pipeline);
+                    if (MachineType.of(m) != expected)
+                        throw new IllegalStateException("Binary image holds a " + MachineType.of(m) + " machine, conversion expects " + expected);
+                    key = m.fingerprint();
+                } else {
+                    MachineCache.Entry entry = MachineCache.SHARED.get(ConvertPipeline.sourceType(pipeline), Files.readString(from));
+                    entry.getVerdict().throwFirstError();
+                    m = entry.getMachine();
+                    key = entry.getKey();
+                }
+                Machine converted = ConvertPipeline.SHARED.convert(m, key, pipeline);
                 Path to = Path.of(cc.to.getText());
-                Files.writeString(to, converted.toString());
-            } catch (IOException | ParseException e) {
-                e.printStackTrace();
+                if (MachineImage.isImage(to)) {
+                    if (!MachineImage.supports(converted))
+                        throw new IllegalStateException("Binary images support TM and MTM only, conversion produced " + MachineType.of(converted));
+                    MachineImage.write(converted, to);
+                } else {
+                    Files.writeString(to, converted.toString());
+                }
+                verdict.setText("Converted!", 1);
+            } catch (IOException e) {
+                verdict.setText("Unable to convert:  " + e.getMessage(), -1);
+            } catch (ParseException | IllegalStateException | IllegalArgumentException e) {
+                verdict.setText(e.getMessage(), -1);
             }
         });
     }
@@ -30,6 +30,9 @@ public class EditController {
     @FXML
     String MULTITAPE_TM;
 
+    @FXML
+    String NONDET_TM;
+
 
 
     @FXML
@@ -69,6 +72,8 @@ public class EditController {
             return new TM();
         } else if (curType.equals(MULTITAPE_TM)) {
             return new MTM();
+        } else if (curType.equals(NONDET_TM)) {
+            return new NTM();
         } else throw new AssertionError();
     }
 
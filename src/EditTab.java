@@ -6,11 +6,12 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import machines.Machine;
+import machines.MachineCache;
+import machines.MachineType;
 import machines.parser.ParseVerdict;
 import misc.CustomFileChooser;
+import misc.Debouncer;
 import misc.LiveLabel;
-import misc.Lock;
 import org.fxmisc.richtext.GenericStyledArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.fxmisc.richtext.model.Paragraph;
@@ -34,15 +35,18 @@ class EditTab {
 
     private static final Insets ERROR_INSETS = new Insets(3, 3, 3, 3);
 
+    private static final int MAX_DRAFTS = 8;
+    private static final long MAX_DRAFTS_WEIGHT = 8L << 20;
+
     private EditController edc;
-    private Postpone postpone;
-    private Lock errorPaneLock = new Lock();
+    private Debouncer validation;
+    private final MachineCache drafts = new MachineCache(MAX_DRAFTS, MAX_DRAFTS_WEIGHT);
 
     private LiveLabel openVerdict, saveVerdict;
 
     EditTab(EditController edc, Stage stage) {
         this.edc = edc;
-        this.postpone = new Postpone(this::updateErrorsAndWarnings);
+        this.validation = new Debouncer(this::updateErrorsAndWarnings);
 
         edc.errorBox.maxWidthProperty().bind(edc.errorScroll.widthProperty());
         edc.edit.prefHeightProperty().bind(edc.editBox.heightProperty());
@@ -72,46 +76,46 @@ class EditTab {
 
 
     private void addListeners() {
-        edc.edit.setOnKeyTyped(event -> postpone.on(500));
-        edc.interpretType.setOnAction(event -> updateErrorsAndWarnings());
+        edc.edit.setOnKeyTyped(event -> validation.on(500));
+        edc.interpretType.setOnAction(event -> validation.now());
     }
 
 
 
     private void updateErrorsAndWarnings() {
-        errorPaneLock.doWithLock(() -> {
-            Machine machine = edc.initMachine();
-            ParseVerdict verdict = machine.parse(edc.edit.getText());
-
-            int oldSize = edc.errorBox.getChildren().size();
-            int newSize = Math.max(1,
-                    (verdict.hasErrors()? 1 : 0)
-                    + verdict.getErrors().size()
-                    + (verdict.hasWarnings()? 1 : 0)
-                    + verdict.getWarnings().size());
-            Platform.runLater(() -> updateErrorsAndWarningsSize(oldSize, newSize));
-
-            AtomicInteger i = new AtomicInteger();
-            ObservableList<Node> labels = edc.errorBox.getChildren();
-
-            if (!verdict.hasErrors() && !verdict.hasWarnings()) {
-                Platform.runLater(() -> edc.addNoErrors((Label) labels.get(i.getAndIncrement())));
-            }
-            if (verdict.hasErrors()) {
-                Platform.runLater(() -> {
-                    edc.addErrorsHeader((Label) labels.get(i.getAndIncrement()));
-                    for (ParseException error : verdict.getErrors())
-                        edc.addError((Label) labels.get(i.getAndIncrement()), error);
-                });
-            }
-            if (verdict.hasWarnings()) {
-                Platform.runLater(() -> {
-                    edc.addWarningsHeader((Label) labels.get(i.getAndIncrement()));
-                    for (String warning : verdict.getWarnings())
-                        edc.addWarning((Label) labels.get(i.getAndIncrement()), warning);
-                });
-            }
-        });
+        MachineType type = MachineType.of(edc.initMachine());
+        ParseVerdict verdict = drafts.get(type, edc.edit.getText()).getVerdict();
+        if (Debouncer.isSuperseded())
+            return;
+
+        int oldSize = edc.errorBox.getChildren().size();
+        int newSize = Math.max(1,
+                (verdict.hasErrors()? 1 : 0)
+                + verdict.getErrors().size()
+                + (verdict.hasWarnings()? 1 : 0)
+                + verdict.getWarnings().size());
+        Platform.runLater(() -> updateErrorsAndWarningsSize(oldSize, newSize));
+
+        AtomicInteger i = new AtomicInteger();
+        ObservableList<Node> labels = edc.errorBox.getChildren();
+
+        if (!verdict.hasErrors() && !verdict.hasWarnings()) {
+            Platform.runLater(() -> edc.addNoErrors((Label) labels.get(i.getAndIncrement())));
+        }
+        if (verdict.hasErrors()) {
+            Platform.runLater(() -> {
+                edc.addErrorsHeader((Label) labels.get(i.getAndIncrement()));
+                for (ParseException error : verdict.getErrors())
+                    edc.addError((Label) labels.get(i.getAndIncrement()), error);
+            });
+        }
+        if (verdict.hasWarnings()) {
+            Platform.runLater(() -> {
+                edc.addWarningsHeader((Label) labels.get(i.getAndIncrement()));
+                for (String warning : verdict.getWarnings())
+                    edc.addWarning((Label) labels.get(i.getAndIncrement()), warning);
+            });
+        }
     }
 
     private void updateErrorsAndWarningsSize(int oldSize, int newSize) {
@@ -137,7 +141,7 @@ class EditTab {
             String content = Files.readString(path);
             edc.edit.replaceText(content);
             openVerdict.setText("Opened", 1);
-            updateErrorsAndWarnings();
+            validation.now();
         } catch (IOException e) {
             openVerdict.setText("Invalid path:  " + path, -1);
         }
@@ -166,36 +170,4 @@ class EditTab {
         };
     }
 
-
-
-    private static class Postpone {
-
-        private long timeToDo = System.currentTimeMillis() - 1;
-        private boolean done = true;
-        private Lock lock = new Lock();
-
-        Postpone(Runnable actionToDo) {
-            Thread thread = new Thread(() -> {
-                while (true) {
-                    lock.doWithLock(() -> {
-                        if (!done && System.currentTimeMillis() >= timeToDo) {
-                            done = true;
-                            actionToDo.run();
-                        }
-                    });
-                }
-            });
-            thread.setDaemon(true);
-            thread.start();
-        }
-
-        void on(long timeMillis) {
-            lock.doWithLock(() -> {
-                this.done = false;
-                timeToDo = System.currentTimeMillis() + timeMillis;
-            });
-        }
-
-    }
-
 }
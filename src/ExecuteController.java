@@ -1,6 +1,8 @@
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import machines.Machine;
@@ -31,6 +33,9 @@ public class ExecuteController {
     @FXML
     String MULTITAPE_TM;
 
+    @FXML
+    String NONDET_TM;
+
     @FXML
     String DESC_DFA;
 
@@ -52,6 +57,9 @@ public class ExecuteController {
     @FXML
     String DESC_MULTITAPE;
 
+    @FXML
+    String DESC_NONDET;
+
     @FXML
     String NOT_LOADED;
 
@@ -70,6 +78,15 @@ public class ExecuteController {
     @FXML
     String NON_DET_STATE;
 
+    @FXML
+    String DEFAULT_METRICS_PATH;
+
+    @FXML
+    String DEFAULT_TRACE_PATH;
+
+    @FXML
+    String DEFAULT_CHECKPOINT_PATH;
+
 
     @FXML
     ChoiceBox<String> choiceTypeToLoad;
@@ -116,6 +133,9 @@ public class ExecuteController {
     @FXML
     Button resetBtn;
 
+    @FXML
+    ToggleButton metricsBtn;
+
     @FXML
     ScrollPane exePane;
 
@@ -131,6 +151,54 @@ public class ExecuteController {
     @FXML
     Text steps;
 
+    @FXML
+    HBox branchBox;
+
+    @FXML
+    Button prevBranchBtn;
+
+    @FXML
+    Text branch;
+
+    @FXML
+    Button nextBranchBtn;
+
+    @FXML
+    VBox metricsBox;
+
+    @FXML
+    TextField metricsPath;
+
+    @FXML
+    Button metricsChooser;
+
+    @FXML
+    Button metricsExportBtn;
+
+    @FXML
+    Label metricsVerdict;
+
+    @FXML
+    CheckBox traceRecord;
+
+    @FXML
+    TextField tracePath;
+
+    @FXML
+    CheckBox checkpointRecord;
+
+    @FXML
+    TextField checkpointPath;
+
+    @FXML
+    Button checkpointResumeBtn;
+
+    @FXML
+    ScrollPane metricsPane;
+
+    @FXML
+    GridPane metricsTable;
+
 
     private TreeSet<String> exeErrors = new TreeSet<>();
 
@@ -158,6 +226,9 @@ public class ExecuteController {
         } else if (curType.equals(MULTITAPE_TM)) {
             descPath.setText(DESC_MULTITAPE);
             return MachineType.MULTITAPE;
+        } else if (curType.equals(NONDET_TM)) {
+            descPath.setText(DESC_NONDET);
+            return MachineType.NONDETERMINISTIC;
         } else throw new AssertionError();
     }
 
@@ -8,7 +8,10 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import machines.*;
-import machines.parser.ParseVerdict;
+import machines.exec.Checkpoint;
+import machines.exec.CheckpointWriter;
+import machines.exec.ExecutionMetrics;
+import machines.exec.TraceWriter;
 import misc.Colors;
 import misc.CustomFileChooser;
 import misc.LiveLabel;
@@ -20,31 +23,44 @@ import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 class ExecuteTab {
 
     private static final String DESC_FC_TITLE = "Choose machine description file";
+    private static final String METRICS_FC_TITLE = "Export execution metrics";
 
     private static final double SMALL_MARGIN = 4;
 
     private static final int MAX_MACHINE_FPS = 20;
     private static final int MAX_TAPE_LENGTH = 200;
+    private static final int MAX_HEATMAP_ROWS = 50;
+    private static final long HEATMAP_ORDER_MILLIS = 1000;
 
     private ExecuteController ec;
 
     private CustomFileChooser descFc;
     private LiveLabel descLoadVerdict;
+    private LiveLabel metricsVerdict;
 
     private List<FlowPane> exeTableSymPanes;
     private List<Text> exeTableSyms;
 
     private MachineType machineType = MachineType.TURING;
     private Machine machine = null;
+    private MachineCache.Entry machineEntry = null;
+    private ExecutionMetrics metrics = null;
+    private volatile boolean heatmapVisible = false;
+    private int[] heatmapStates, heatmapTransitions;
+    private long heatmapOrderedAt;
+    private TraceWriter trace = null;
+    private CheckpointWriter checkpoints = null;
     private Lock machineBusy = new Lock();
     private Lock machineUILock = new Lock();
     private AtomicBoolean machineHalt = new AtomicBoolean(false);
-    private int steps = 0;
+    private long steps = 0;
     private double delay = 0;
     private long uiUpdTimestamp = System.currentTimeMillis();
     private ExecutionDelayer delayer;
@@ -59,11 +75,17 @@ class ExecuteTab {
                 .setPostAction(this::uploadMachine)
                 .compile();
         descLoadVerdict = new LiveLabel(ec.descLoadVerdict);
+
+        new CustomFileChooser(stage, ec.metricsPath, ec.metricsChooser, ec.metricsExportBtn, false)
+                .setDialogTitle(METRICS_FC_TITLE)
+                .setPostAction(this::exportMetrics)
+                .compile();
+        metricsVerdict = new LiveLabel(ec.metricsVerdict);
     }
 
     void postInit() {
         addListeners();
-        Main.fixBlurryText(ec.descPane, ec.exePane);
+        Main.fixBlurryText(ec.descPane, ec.exePane, ec.metricsPane);
     }
 
 
@@ -106,10 +128,13 @@ class ExecuteTab {
                     updateMachineState(false);
                     Main.runInNewThread(() -> {
                         delayer = new ExecutionDelayer(delay);
+                        metrics.startTimer();
                         while (!machineHalt.get() && !machine.isInTerminalState()) {
                             makeStep(false, true);
                             delayer.delay();
                         }
+                        metrics.stopTimer();
+                        flushTrace();
                         updateMachineState(true);
                         machineHalt.set(false);
                         machineBusy.unlock();
@@ -126,6 +151,7 @@ class ExecuteTab {
                 machineBusy.tryWithLock(() -> {
                     if (!machine.isInTerminalState()) {
                         makeStep(true, false);
+                        flushTrace();
                     }
                 });
             }
@@ -138,6 +164,47 @@ class ExecuteTab {
         });
 
         ec.resetBtn.setOnMouseClicked(event -> resetMachine());
+
+        ec.prevBranchBtn.setOnMouseClicked(event -> {
+            if (machine != null) {
+                machineBusy.tryWithLock(() -> {
+                    machine.prevBranch();
+                    updateMachineState(false);
+                });
+            }
+        });
+
+        ec.nextBranchBtn.setOnMouseClicked(event -> {
+            if (machine != null) {
+                machineBusy.tryWithLock(() -> {
+                    machine.nextBranch();
+                    updateMachineState(false);
+                });
+            }
+        });
+
+        ec.checkpointResumeBtn.setOnMouseClicked(event -> {
+            if (machine == null) {
+                ec.addExeError(ec.NO_MACHINE_ERR);
+            } else {
+                if (machineBusy.isLocked()) {
+                    machineHalt.set(true);
+                }
+                Main.runInNewThread(() -> machineBusy.doWithLock(() -> {
+                    resumeMachineState();
+                    updateMachineState(true);
+                }));
+            }
+        });
+
+        ec.metricsBtn.setOnAction(event -> {
+            ec.metricsBox.setVisible(ec.metricsBtn.isSelected());
+            ec.metricsBox.setManaged(ec.metricsBtn.isSelected());
+            heatmapVisible = ec.metricsBtn.isSelected();
+            heatmapStates = null;
+            if (machine != null)
+                updateHeatmap(false);
+        });
     }
 
 
@@ -156,41 +223,98 @@ class ExecuteTab {
 
     private void resetMachineState() {
         machine.init(ec.inputString.getText());
+        metrics.reset();
         steps = 0;
+        closeTrace();
+        if (ec.traceRecord.isSelected()) {
+            Path path = Path.of(ec.tracePath.getText());
+            try {
+                trace = new TraceWriter(path, machine, metrics.getIndex(), ec.inputString.getText(),
+                        TraceWriter.DEFAULT_CHECKPOINT_INTERVAL);
+            } catch (IOException e) {
+                Platform.runLater(() -> metricsVerdict.setText("Unable to record trace:  " + path, -1));
+            }
+        }
+        closeCheckpoints();
+        if (ec.checkpointRecord.isSelected())
+            checkpoints = new CheckpointWriter(Path.of(ec.checkpointPath.getText()), machine, ec.inputString.getText());
+    }
+
+    private void resumeMachineState() {
+        Path path = Path.of(ec.checkpointPath.getText());
+        try {
+            Checkpoint cp = Checkpoint.latest(path);
+            cp.restore(machine);
+            metrics.reset();
+            steps = cp.getSteps();
+            closeTrace();
+            closeCheckpoints();
+            if (ec.checkpointRecord.isSelected())
+                checkpoints = CheckpointWriter.resume(path, machine, cp);
+            Platform.runLater(() -> {
+                ec.inputString.setText(cp.getInput());
+                metricsVerdict.setText(String.format("Resumed at step %,d", cp.getSteps()), 1);
+            });
+        } catch (IOException e) {
+            Platform.runLater(() -> metricsVerdict.setText("Unable to resume:  " + e.getMessage(), -1));
+        }
+    }
+
+    private void closeCheckpoints() {
+        if (checkpoints != null) {
+            checkpoints.closeAsync().whenComplete((v, e) -> {
+                if (e != null)
+                    Platform.runLater(() -> metricsVerdict.setText("Unable to finish checkpoint:  " + e.getCause().getMessage(), -1));
+            });
+            checkpoints = null;
+        }
+    }
+
+    private void flushTrace() {
+        if (trace != null) {
+            try {
+                trace.flush();
+            } catch (IOException e) {
+                Platform.runLater(() -> metricsVerdict.setText("Trace recording stopped:  " + e.getMessage(), -1));
+                closeTrace();
+            }
+        }
+    }
+
+    private void closeTrace() {
+        if (trace != null) {
+            try {
+                trace.close();
+            } catch (IOException e) {
+                Platform.runLater(() -> metricsVerdict.setText("Unable to finish trace:  " + e.getMessage(), -1));
+            }
+            trace = null;
+        }
     }
 
     private void uploadMachine(Path path) {
         machineHalt.set(true);
+        closeTrace();
+        closeCheckpoints();
         try {
-            String content = Files.readString(path);
-            ParseVerdict verdict;
-            switch (machineType) {
-                case DFA:
-                    machine = new DFA();
-                    break;
-                case NFA:
-                    machine = new NFA();
-                    break;
-                case DCA:
-                    machine = new DCA();
-                    break;
-                case DPDA:
-                    machine = new DPDA();
-                    break;
-                case ONEWAY:
-                    machine = new OneTM();
-                    break;
-                case TURING:
-                    machine = new TM();
-                    break;
-                case MULTITAPE:
-                    machine = new MTM();
-                    break;
-                default:
-                    throw new IllegalStateException("Something went wrong (invalid machine type)");
+            String content;
+            if (MachineImage.isImage(path)) {
+                Machine image = MachineImage.read(path);
+                if (MachineType.of(image) != machineType)
+                    throw new IllegalStateException("Binary image holds a " + MachineType.of(image) + " machine");
+                releaseMachine();
+                machine = image;
+                content = String.format("// Binary machine image, %,d transitions", image.getTransitions().size());
+            } else {
+                content = Files.readString(path);
+                MachineCache.Entry entry = MachineCache.SHARED.get(machineType, content);
+                entry.getVerdict().throwFirstError();
+                releaseMachine();
+                machine = entry.borrow();
+                machineEntry = entry;
             }
-            verdict = machine.parse(content);
-            verdict.throwFirstError();
+            metrics = new ExecutionMetrics(machine);
+            heatmapStates = null;
             ec.desc.setText(content);
             descLoadVerdict.setText("Uploaded!", 1);
             ec.setDescFileName(path.getFileName().toString());
@@ -203,7 +327,8 @@ class ExecuteTab {
             descLoadVerdict.setText("Invalid machine description path:  " + path, -1);
         } catch (ParseException | IllegalStateException e) {
             descLoadVerdict.setText(e.getMessage(), -1);
-            machine = null;
+            releaseMachine();
+            metrics = null;
             ec.setDescFileName(null);
             ec.descPane.setVisible(false);
             ec.state.setText(" ");
@@ -211,6 +336,13 @@ class ExecuteTab {
         }
     }
 
+    private void releaseMachine() {
+        if (machineEntry != null)
+            machineEntry.release(machine);
+        machine = null;
+        machineEntry = null;
+    }
+
     private void updateExeTableShape(int oldTapes, int newTapes, int oldLen, int newLen) {
         boolean smthChanges = oldTapes != newTapes || oldLen != newLen;
 
@@ -277,7 +409,7 @@ class ExecuteTab {
         int oldTapes = ec.exeTable.getRowCount() / 2;
         int newTapes = m.tapes();
         int oldLen = oldTapes == 0? 0 : exeTableSymPanes.size() / (2 * oldTapes);
-        int newLen = Math.min(MAX_TAPE_LENGTH + 1, IntStream.range(0, newTapes).map(m::getTapeSize).max().getAsInt());
+        int newLen = (int) Math.min(MAX_TAPE_LENGTH + 1, IntStream.range(0, newTapes).mapToLong(m::getTapeSize).max().getAsLong());
 
         doSceneGraphUpdate(isMultithreaded, () -> {
             updateExeTableShape(oldTapes, newTapes, oldLen, newLen);
@@ -317,12 +449,127 @@ class ExecuteTab {
         else
             ec.state.setTextFill(Color.BLACK);
         ec.steps.setText(String.format("%,d", steps));
+        int branches = machine.branches(), branch = machine.getCurrentBranch();
+        doSceneGraphUpdate(isMultithreaded, () -> {
+            ec.branchBox.setVisible(branches > 1);
+            ec.branchBox.setManaged(branches > 1);
+            ec.branch.setText(String.format("Branch %,d / %,d", branch + 1, branches));
+        });
         updateExeTable(isMultithreaded);
+        updateHeatmap(isMultithreaded);
+    }
+
+    private void updateHeatmap(boolean isMultithreaded) {
+        if (!heatmapVisible)
+            return;
+        ExecutionMetrics metrics = this.metrics;
+        MachineIndex index = metrics.getIndex();
+        String summary = String.format("%,d steps, %,.0f steps/s, tape high-water %s", metrics.getSteps(),
+                metrics.getStepsPerSecond(), IntStream.range(0, machine.tapes())
+                        .mapToObj(t -> String.format("%,d", metrics.getTapeHighWater(t))).collect(Collectors.joining(" / ")));
+
+        doSceneGraphUpdate(isMultithreaded, () -> {
+            if (!ec.metricsBox.isVisible())
+                return;
+            long now = System.currentTimeMillis();
+            if (heatmapStates == null || now - heatmapOrderedAt >= HEATMAP_ORDER_MILLIS) {
+                heatmapStates = topIndices(index.states(), metrics::getStateVisits);
+                heatmapTransitions = topIndices(index.transitions(), metrics::getTransitionHits);
+                heatmapOrderedAt = now;
+            }
+            long maxVisits = 0, maxHits = 0;
+            for (int state : heatmapStates)
+                maxVisits = Math.max(maxVisits, metrics.getStateVisits(state));
+            for (int transition : heatmapTransitions)
+                maxHits = Math.max(maxHits, metrics.getTransitionHits(transition));
+
+            ec.metricsTable.getChildren().clear();
+            addHeatmapRow(0, summary, "", null);
+            addHeatmapRow(1, "State", "Visits", null);
+            for (int i = 0; i < heatmapStates.length; i++) {
+                long visits = metrics.getStateVisits(heatmapStates[i]);
+                addHeatmapRow(i + 2, index.getState(heatmapStates[i]), String.format("%,d", visits),
+                        Colors.heat(maxVisits == 0? 0 : (double) visits / maxVisits));
+            }
+            int offset = heatmapStates.length + 2;
+            addHeatmapRow(offset, "Transition", "Hits", null);
+            for (int i = 0; i < heatmapTransitions.length; i++) {
+                long hits = metrics.getTransitionHits(heatmapTransitions[i]);
+                addHeatmapRow(offset + i + 1, metrics.transitionName(heatmapTransitions[i]), String.format("%,d", hits),
+                        Colors.heat(maxHits == 0? 0 : (double) hits / maxHits));
+            }
+        });
+    }
+
+    private void addHeatmapRow(int row, String name, String count, Color color) {
+        Text nameText = new Text(name), countText = new Text(count);
+        if (color == null) {
+            nameText.setStyle("-fx-font-weight: bold;");
+            countText.setStyle("-fx-font-weight: bold;");
+        }
+        FlowPane countPane = new FlowPane(countText);
+        countPane.setAlignment(Pos.CENTER_RIGHT);
+        countPane.setMinWidth(100);
+        if (color != null)
+            Colors.setColor(countPane, color);
+        GridPane.setMargin(nameText, new Insets(0, SMALL_MARGIN, 0, SMALL_MARGIN));
+        ec.metricsTable.add(nameText, 0, row);
+        ec.metricsTable.add(countPane, 1, row);
+    }
+
+    private static int[] topIndices(int n, IntToLongFunction counter) {
+        int[] top = new int[Math.min(n, MAX_HEATMAP_ROWS)];
+        long[] counts = new long[top.length];
+        int size = 0;
+        for (int i = 0; i < n && top.length > 0; i++) {
+            long count = counter.applyAsLong(i);
+            if (count == 0 || size == top.length && count <= counts[size - 1])
+                continue;
+            int at = size < top.length? size++ : size - 1;
+            for (; at > 0 && counts[at - 1] < count; at--) {
+                top[at] = top[at - 1];
+                counts[at] = counts[at - 1];
+            }
+            top[at] = i;
+            counts[at] = count;
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    private void exportMetrics(Path path) {
+        if (metrics == null) {
+            metricsVerdict.setText("No machine uploaded", -1);
+            return;
+        }
+        try {
+            metrics.export(path);
+            metricsVerdict.setText("Exported", 1);
+        } catch (IOException e) {
+            metricsVerdict.setText("Invalid path:  " + path, -1);
+        }
     }
 
     private void makeStep(boolean doNecessaryUpdate, boolean isMultithreaded) {
-        machine.makeStep();
+        metrics.makeStep();
         steps++;
+        if (trace != null) {
+            try {
+                trace.recordStep();
+            } catch (IOException e) {
+                Platform.runLater(() -> metricsVerdict.setText("Trace recording stopped:  " + e.getMessage(), -1));
+                closeTrace();
+            }
+            if (machine.isInTerminalState())
+                closeTrace();
+        }
+        if (checkpoints != null) {
+            try {
+                checkpoints.tick(steps);
+            } catch (IOException e) {
+                Platform.runLater(() -> metricsVerdict.setText("Checkpointing stopped:  " + e.getMessage(), -1));
+                closeCheckpoints();
+            }
+        }
         if (doNecessaryUpdate || 1000.0 / (System.currentTimeMillis() - uiUpdTimestamp) < MAX_MACHINE_FPS) {
             updateMachineState(isMultithreaded);
             uiUpdTimestamp = System.currentTimeMillis();
@@ -7,10 +7,39 @@ import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import machines.MachineImage;
+import machines.exec.BatchCoordinator;
+import machines.exec.ExecutionServer;
+import machines.exec.SpaceTimeDiagram;
+import machines.table.DFATokenizer;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
 
 public class Main extends Application {
 
     private static final String TITLE = "Turing Machine Executor";
+    private static final String SERVER_FLAG = "--server";
+    private static final String COMPILE_FLAG = "--compile";
+    private static final String BATCH_FLAG = "--batch";
+    private static final String DIAGRAM_FLAG = "--diagram";
+    private static final String TOKENIZE_FLAG = "--tokenize";
+
+    public static void main(String[] args) throws IOException, ParseException, InterruptedException {
+        if (args.length > 0 && args[0].equals(SERVER_FLAG))
+            ExecutionServer.main(Arrays.copyOfRange(args, 1, args.length));
+        else if (args.length > 0 && args[0].equals(COMPILE_FLAG))
+            MachineImage.main(Arrays.copyOfRange(args, 1, args.length));
+        else if (args.length > 0 && args[0].equals(BATCH_FLAG))
+            BatchCoordinator.main(Arrays.copyOfRange(args, 1, args.length));
+        else if (args.length > 0 && args[0].equals(DIAGRAM_FLAG))
+            SpaceTimeDiagram.main(Arrays.copyOfRange(args, 1, args.length));
+        else if (args.length > 0 && args[0].equals(TOKENIZE_FLAG))
+            DFATokenizer.main(Arrays.copyOfRange(args, 1, args.length));
+        else
+            launch(args);
+    }
 
     public void start(Stage stage) throws Exception {
 
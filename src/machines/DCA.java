@@ -32,6 +32,7 @@ public class DCA extends Machine {
     private String currentState;
     private ArrayList<String> input;
     private int inputPtr;
+    private TransitionArgument lastTransition;
     private long[] counter;
 
     private boolean executionFinished = false;
@@ -186,6 +187,7 @@ public class DCA extends Machine {
 
     public void init(String input) {
         currentState = startState;
+        lastTransition = null;
         this.input = input.chars()
                 .mapToObj(n -> Character.toString((char) n))
                 .collect(Collectors.toCollection(ArrayList::new));
@@ -197,6 +199,7 @@ public class DCA extends Machine {
     private TransitionResult step(TransitionArgument arg) {
         TransitionResult res = transitions.get(arg);
         if (res != null) {
+            lastTransition = arg;
             if (!arg.getSymbols()[0].equals(eps))
                 inputPtr++;
             return res;
@@ -206,8 +209,12 @@ public class DCA extends Machine {
         epsSyms[0] = eps;
         System.arraycopy(arg.getSymbols(), 1, epsSyms, 1, counters);
         res = transitions.get(arg.getState(), epsSyms);
-        if (res != null) return res;
+        if (res != null) {
+            lastTransition = new TransitionArgument(arg.getState(), epsSyms);
+            return res;
+        }
 
+        lastTransition = null;
         executionFinished = true;
         return inputPtr == input.size()? defaultResult(arg.getState()) : defaultRejectResult();
     }
@@ -234,6 +241,24 @@ public class DCA extends Machine {
         }
     }
 
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
+
+    public MachineSnapshot snapshot() {
+        return new MachineSnapshot(new String[] {currentState}, new String[][] {input.toArray(new String[0])},
+                new int[] {inputPtr}, counter.clone(), executionFinished);
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        currentState = snapshot.getState();
+        input = new ArrayList<>(Arrays.asList(snapshot.getTape(0)));
+        inputPtr = Math.toIntExact(snapshot.getHead(0));
+        counter = snapshot.getCounters().clone();
+        executionFinished = snapshot.isFinished();
+        lastTransition = null;
+    }
+
 
 
     private String[] getCounterArgs() {
@@ -260,19 +285,19 @@ public class DCA extends Machine {
         return counters + 1;
     }
 
-    public int getTapeSize(int tape) {
+    public long getTapeSize(int tape) {
         return tape == 0? input.size() + 1 : Long.toString(counter[tape - 1]).length();
     }
 
-    public String getTapeContent(int tape, int i) {
+    public String getTapeContent(int tape, long i) {
         if (tape == 0) {
-            return i < input.size()? input.get(i) : "";
+            return i < input.size()? input.get((int) i) : "";
         } else {
-            return Character.toString(Long.toString(counter[tape - 1]).charAt(i));
+            return Character.toString(Long.toString(counter[tape - 1]).charAt((int) i));
         }
     }
 
-    public Color getTapeContentColor(int tape, int i) {
+    public Color getTapeContentColor(int tape, long i) {
         if (tape == 0) {
             if (input.isEmpty())
                 return Colors.EXE_BLANK;
@@ -283,7 +308,7 @@ public class DCA extends Machine {
         }
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
+    public boolean getTapeContentPointer(int tape, long i) {
         return tape == 0 && i == inputPtr;
     }
 
@@ -22,6 +22,7 @@ public class DFA extends Machine {
     private String currentState;
     private ArrayList<String> input;
     private int ptr;
+    private TransitionArgument lastTransition;
 
     public static DFA with(String startState, Set<String> acceptStates, Transitions transitions) {
         DFA m = new DFA();
@@ -126,6 +127,7 @@ public class DFA extends Machine {
 
     public void init(String input) {
         currentState = startState;
+        lastTransition = null;
         this.input = new ArrayList<>();
         for (char c : input.toCharArray())
             this.input.add(Character.toString(c));
@@ -134,6 +136,7 @@ public class DFA extends Machine {
 
     private TransitionResult step(TransitionArgument arg) {
         TransitionResult result = transitions.get(arg);
+        lastTransition = result == null? null : arg;
         return Objects.requireNonNullElseGet(result, () -> new TransitionResult(DEFAULT_REJECT));
     }
 
@@ -145,21 +148,36 @@ public class DFA extends Machine {
         currentState = result.getState();
     }
 
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
+
+    public MachineSnapshot snapshot() {
+        return MachineSnapshot.of(currentState, input, ptr);
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        currentState = snapshot.getState();
+        input = new ArrayList<>(Arrays.asList(snapshot.getTape(0)));
+        ptr = Math.toIntExact(snapshot.getHead(0));
+        lastTransition = null;
+    }
+
 
 
-    public int getTapeSize(int tape) {
+    public long getTapeSize(int tape) {
         return Math.max(1, input.size());
     }
 
-    public String getTapeContent(int tape, int i) {
-        return input.isEmpty()? "" : input.get(i);
+    public String getTapeContent(int tape, long i) {
+        return input.isEmpty()? "" : input.get((int) i);
     }
 
-    public Color getTapeContentColor(int tape, int i) {
+    public Color getTapeContentColor(int tape, long i) {
         return input.isEmpty()? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
+    public boolean getTapeContentPointer(int tape, long i) {
         return i == ptr;
     }
 
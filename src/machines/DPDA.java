@@ -33,6 +33,7 @@ public class DPDA extends Machine {
     private String currentState;
     private ArrayList<String> input;
     private int inputPtr;
+    private TransitionArgument lastTransition;
     private ArrayList<String>[] stack;
 
     private boolean executionFinished = false;
@@ -279,6 +280,7 @@ public class DPDA extends Machine {
 
     public void init(String input) {
         currentState = startState;
+        lastTransition = null;
         this.input = input.chars()
                 .mapToObj(n -> Character.toString((char) n))
                 .collect(Collectors.toCollection(ArrayList::new));
@@ -294,6 +296,7 @@ public class DPDA extends Machine {
     private TransitionResult step(TransitionArgument arg) {
         TransitionResult res = transitions.get(arg);
         if (res != null) {
+            lastTransition = arg;
             if (!arg.getSymbols()[0].equals(eps))
                 inputPtr++;
             return res;
@@ -303,8 +306,12 @@ public class DPDA extends Machine {
         epsSyms[0] = eps;
         System.arraycopy(arg.getSymbols(), 1, epsSyms, 1, stacks);
         res = transitions.get(arg.getState(), epsSyms);
-        if (res != null) return res;
+        if (res != null) {
+            lastTransition = new TransitionArgument(arg.getState(), epsSyms);
+            return res;
+        }
 
+        lastTransition = null;
         executionFinished = true;
         return inputPtr == input.size()?
                 defaultResult(arg.getState(), arg.getSymbols()) :
@@ -326,6 +333,31 @@ public class DPDA extends Machine {
         }
     }
 
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
+
+    public MachineSnapshot snapshot() {
+        String[][] tapes = new String[stacks + 1][];
+        tapes[0] = input.toArray(new String[0]);
+        for (int i = 0; i < stacks; i++)
+            tapes[i + 1] = stack[i].toArray(new String[0]);
+        int[] heads = new int[stacks + 1];
+        heads[0] = inputPtr;
+        return new MachineSnapshot(new String[] {currentState}, tapes, heads, new long[0], executionFinished);
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        currentState = snapshot.getState();
+        input = new ArrayList<>(Arrays.asList(snapshot.getTape(0)));
+        inputPtr = Math.toIntExact(snapshot.getHead(0));
+        stack = new ArrayList[stacks];
+        for (int i = 0; i < stacks; i++)
+            stack[i] = new ArrayList<>(Arrays.asList(snapshot.getTape(i + 1)));
+        executionFinished = snapshot.isFinished();
+        lastTransition = null;
+    }
+
 
 
     private String[] popAllSymbols() {
@@ -358,22 +390,22 @@ public class DPDA extends Machine {
         return stacks + 1;
     }
 
-    public int getTapeSize(int tape) {
+    public long getTapeSize(int tape) {
         return tape == 0? input.size() + 1 : stack[tape - 1].size() + 1;
     }
 
-    public String getTapeContent(int tape, int i) {
+    public String getTapeContent(int tape, long i) {
         if (tape == 0) {
-            return i < input.size()? input.get(i) : "";
+            return i < input.size()? input.get((int) i) : "";
         } else {
             if (i < stack[tape - 1].size())
-                return stack[tape - 1].get(i).equals(bottom)? "" : stack[tape - 1].get(i);
+                return stack[tape - 1].get((int) i).equals(bottom)? "" : stack[tape - 1].get((int) i);
             else
                 return "<";
         }
     }
 
-    public Color getTapeContentColor(int tape, int i) {
+    public Color getTapeContentColor(int tape, long i) {
         if (tape == 0) {
             if (input.isEmpty())
                 return Colors.EXE_BLANK;
@@ -389,7 +421,7 @@ public class DPDA extends Machine {
         }
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
+    public boolean getTapeContentPointer(int tape, long i) {
         return tape == 0 && i == inputPtr;
     }
 
@@ -4,11 +4,14 @@ import javafx.scene.paint.Color;
 import machines.parser.MachineParser;
 import machines.parser.MachineParserSettings;
 import machines.parser.ParseVerdict;
+import machines.tape.Alphabet;
+import machines.tape.Tape;
+import machines.tape.TapeWindow;
+import machines.tape.Tapes;
 import misc.Colors;
 
 import java.text.ParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static machines.convert.ImmutableFunctions.subArray;
 
@@ -30,8 +33,12 @@ public class MTM extends Machine {
     private Transitions transitions = new Transitions();
 
     private String currentState;
-    private LinkedList<String>[] currentBefore;
-    private LinkedList<String>[] currentAfter;
+    private Alphabet baseAlphabet;
+    private Alphabet alphabet;
+    private Tape[] currentTapes;
+    private TapeWindow[] windows;
+    private int sinceAdapt;
+    private TransitionArgument lastTransition;
 
     public static MTM with(
             int tapes, String startState, String acceptState, String rejectState, String blankSymbol,
@@ -70,6 +77,12 @@ public class MTM extends Machine {
         return parser;
     }
 
+    @Override
+    public ParseVerdict parse(String content) {
+        baseAlphabet = null;
+        return super.parse(content);
+    }
+
     private ParseVerdict parseTapes(String val) {
         int ln = parser.getLine();
         try {
@@ -190,26 +203,21 @@ public class MTM extends Machine {
 
     public void init(String input) {
         currentState = startState;
-        currentBefore = new LinkedList[tapes];
-        currentAfter = new LinkedList[tapes];
+        lastTransition = null;
+        alphabet = baseAlphabet().copy();
+        currentTapes = new Tape[tapes];
+        windows = new TapeWindow[tapes];
         for (int i = 0; i < tapes; i++) {
-            currentBefore[i] = new LinkedList<>();
-            currentBefore[i].addFirst(blankSymbol);
-            if (i == 0) {
-                currentAfter[i] = input.chars()
-                        .mapToObj(n -> Character.toString((char) n))
-                        .collect(Collectors.toCollection(LinkedList::new));
-                if (currentAfter[i].isEmpty() || !currentAfter[i].getLast().equals(blankSymbol))
-                    currentAfter[i].addLast(blankSymbol);
-            } else {
-                currentAfter[i] = new LinkedList<>();
-                currentAfter[i].addLast(blankSymbol);
-            }
+            currentTapes[i] = Tapes.of(alphabet.blank(), i == 0? alphabet.encode(input) : new int[0], 0);
+            windows[i] = new TapeWindow();
+            windows[i].init(currentTapes[i]);
         }
+        sinceAdapt = 0;
     }
 
     private TransitionResult step(TransitionArgument arg) {
         TransitionResult result = transitions.get(arg);
+        lastTransition = result == null? null : arg;
         return Objects.requireNonNullElseGet(result, () -> defaultRejectResult(arg.getSymbols()));
     }
 
@@ -220,33 +228,40 @@ public class MTM extends Machine {
         TransitionResult result = step(arg);
         currentState = result.getState();
         for (int i = 0; i < tapes; i++) {
-            currentAfter[i].removeFirst();
-            currentAfter[i].addFirst(result.getSymbols()[i]);
-            switch (result.getDirections()[i]) {
-                case RIGHT:
-                    currentBefore[i].addLast(currentAfter[i].removeFirst());
-                    if (currentAfter[i].isEmpty())
-                        currentAfter[i].add(blankSymbol);
-                    else if (currentBefore[i].size() > 1 &&
-                            currentBefore[i].getFirst().equals(blankSymbol) &&
-                            currentBefore[i].get(1).equals(blankSymbol))
-                        currentBefore[i].removeFirst();
-                    break;
-                case LEFT:
-                    currentAfter[i].addFirst(currentBefore[i].removeLast());
-                    if (currentBefore[i].isEmpty())
-                        currentBefore[i].add(blankSymbol);
-                    /* falls */
-                case STAY:
-                    if (currentAfter[i].size() > 1 &&
-                            currentAfter[i].getLast().equals(blankSymbol) &&
-                            currentAfter[i].get(currentAfter[i].size() - 2).equals(blankSymbol))
-                        currentAfter[i].removeLast();
-                    else if (!currentAfter[i].getLast().equals(blankSymbol))
-                        currentAfter[i].addLast(blankSymbol);
-                    break;
-            }
+            currentTapes[i].write(alphabet.id(result.getSymbols()[i]));
+            currentTapes[i].move(result.getDirections()[i].getShift());
+            windows[i].moved(currentTapes[i], result.getDirections()[i].getShift());
+        }
+        if (++sinceAdapt == Tapes.ADAPT_PERIOD) {
+            sinceAdapt = 0;
+            for (int i = 0; i < tapes; i++)
+                currentTapes[i] = Tapes.adapt(currentTapes[i]);
+        }
+    }
+
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
+
+    public MachineSnapshot snapshot() {
+        Tape[] tapes = new Tape[this.tapes];
+        for (int i = 0; i < this.tapes; i++)
+            tapes[i] = currentTapes[i].copy();
+        return new MachineSnapshot(new String[] {currentState}, alphabet.symbols(), tapes, new long[0], false);
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        currentState = snapshot.getState();
+        alphabet = baseAlphabet().copy();
+        currentTapes = new Tape[tapes];
+        windows = new TapeWindow[tapes];
+        for (int i = 0; i < tapes; i++) {
+            currentTapes[i] = snapshot.getTape(i, alphabet);
+            windows[i] = new TapeWindow();
+            windows[i].reset(currentTapes[i]);
         }
+        sinceAdapt = 0;
+        lastTransition = null;
     }
 
 
@@ -255,32 +270,39 @@ public class MTM extends Machine {
         return tapes;
     }
 
-    public int getTapeSize(int tape) {
-        return currentBefore[tape].size() + currentAfter[tape].size();
+    public long getTapeSize(int tape) {
+        return windows[tape].size();
     }
 
-    public String getTapeContent(int tape, int i) {
-        String content = getTapeContent0(tape, i);
-        return content.equals(blankSymbol)? "" : content;
+    public String getTapeContent(int tape, long i) {
+        int content = windows[tape].get(currentTapes[tape], i);
+        return content == alphabet.blank()? "" : alphabet.symbol(content);
     }
 
-    public Color getTapeContentColor(int tape, int i) {
-        return getTapeContent0(tape, i).equals(blankSymbol)? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
+    public Color getTapeContentColor(int tape, long i) {
+        return windows[tape].get(currentTapes[tape], i) == alphabet.blank()? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
-        return i == currentBefore[tape].size();
+    public boolean getTapeContentPointer(int tape, long i) {
+        return i == windows[tape].head();
     }
 
-    private String getTapeContent0(int tape, int i) {
-        return i < currentBefore[tape].size()? currentBefore[tape].get(i) : currentAfter[tape].get(i - currentBefore[tape].size());
+    @Override
+    public long getTapeHead(int tape) {
+        return windows[tape].head();
     }
 
 
+    private Alphabet baseAlphabet() {
+        if (baseAlphabet == null)
+            baseAlphabet = new Alphabet(blankSymbol, getSymbolsSet());
+        return baseAlphabet;
+    }
+
     private String[] currentSymbols() {
         String[] syms = new String[tapes];
         for (int i = 0; i < tapes; i++)
-            syms[i] = currentAfter[i].getFirst();
+            syms[i] = alphabet.symbol(currentTapes[i].read());
         return syms;
     }
 
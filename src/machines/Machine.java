@@ -4,6 +4,10 @@ import javafx.scene.paint.Color;
 import machines.parser.MachineParser;
 import machines.parser.ParseVerdict;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
 import java.util.Set;
 
 public abstract class Machine {
@@ -15,6 +19,29 @@ public abstract class Machine {
         return getParser().parse(content);
     }
 
+    public Machine copy() {
+        try {
+            Machine m = getClass().getDeclaredConstructor().newInstance();
+            m.parse(toString()).throwFirstError();
+            return m;
+        } catch (ReflectiveOperationException | ParseException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public String fingerprint() {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest((getClass().getSimpleName() + "\n" + this).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash)
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
 
     public String getCurrentState() {
         return null;
@@ -40,6 +67,10 @@ public abstract class Machine {
         return null;
     }
 
+    public String getEps() {
+        return null;
+    }
+
     abstract public Transitions getTransitions();
 
 
@@ -73,6 +104,25 @@ public abstract class Machine {
 
     abstract public void makeStep();
 
+    public RunVerdict run(String input, long maxSteps) {
+        init(input);
+        for (long i = 0; i < maxSteps && !isInTerminalState(); i++)
+            makeStep();
+        if (isInAcceptState())
+            return RunVerdict.ACCEPT;
+        if (isInTerminalState())
+            return RunVerdict.REJECT;
+        return RunVerdict.UNDECIDED;
+    }
+
+    public TransitionArgument getLastTransition() {
+        return null;
+    }
+
+    abstract public MachineSnapshot snapshot();
+
+    abstract public void restore(MachineSnapshot snapshot);
+
 
     public int branches() {
         return 1;
@@ -91,12 +141,20 @@ public abstract class Machine {
         return 1;
     }
 
-    abstract public int getTapeSize(int tape);
+    abstract public long getTapeSize(int tape);
 
-    abstract public String getTapeContent(int tape, int i);
+    abstract public String getTapeContent(int tape, long i);
 
-    abstract public Color getTapeContentColor(int tape, int i);
+    abstract public Color getTapeContentColor(int tape, long i);
 
-    abstract public boolean getTapeContentPointer(int tape, int i);
+    abstract public boolean getTapeContentPointer(int tape, long i);
+
+    public long getTapeHead(int tape) {
+        long size = getTapeSize(tape);
+        for (long i = 0; i < size; i++)
+            if (getTapeContentPointer(tape, i))
+                return i;
+        return -1;
+    }
 
 }
\ No newline at end of file
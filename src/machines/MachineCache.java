@@ -0,0 +1,197 @@
+package machines;
+
+import machines.parser.ParseVerdict;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class MachineCache {
+
+    public static final MachineCache SHARED = new MachineCache(64, 64L << 20);
+    public static final long TRANSITION_WEIGHT = 192;
+
+    private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors();
+    private static final Object NONE = new Object();
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+
+    public MachineCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public static String key(MachineType type, String description) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(type.name().getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(description.getBytes(StandardCharsets.UTF_8)))
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+
+
+    public Entry get(MachineType type, String description) {
+        String key = key(type, description);
+        Entry entry = find(key);
+        if (entry != null)
+            return entry;
+
+        Machine machine = type.create();
+        ParseVerdict verdict = machine.parse(description);
+        entry = new Entry(key, type, description, machine, verdict, true);
+        if (Thread.currentThread().isInterrupted())
+            return entry;
+        return insert(entry);
+    }
+
+    public Entry put(MachineType type, Machine machine) {
+        String description = machine.toString();
+        return insert(new Entry(key(type, description), type, description, machine, new ParseVerdict(), false));
+    }
+
+    private synchronized Entry insert(Entry entry) {
+        Entry existing = entries.get(entry.key);
+        if (existing != null)
+            return existing;
+        entries.put(entry.key, entry);
+        weight += entry.weight();
+        evict(entry);
+        return entry;
+    }
+
+    public synchronized Entry find(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private void evict(Entry keep) {
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == keep)
+                continue;
+            weight -= eldest.weight();
+            it.remove();
+        }
+    }
+
+
+
+    public static class Entry {
+
+        private final String key;
+        private final MachineType type;
+        private final String description;
+        private final ParseVerdict verdict;
+        private final ConcurrentLinkedQueue<Machine> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final ConcurrentHashMap<Object, Object> derived = new ConcurrentHashMap<>();
+        private final long weight;
+        private volatile Machine machine;
+
+        // A freshly parsed machine goes straight to the idle pool for the first borrower; the shared instance that
+        // conversions and compilation read is parsed separately, and only when one of them asks for it.
+        private Entry(String key, MachineType type, String description, Machine machine, ParseVerdict verdict, boolean fresh) {
+            this.key = key;
+            this.type = type;
+            this.description = description;
+            this.verdict = verdict;
+            this.weight = 2L * description.length() + TRANSITION_WEIGHT * machine.getTransitions().size();
+            if (fresh && !verdict.hasErrors()) {
+                idle.add(machine);
+                idleCount.incrementAndGet();
+            } else {
+                this.machine = machine;
+            }
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public MachineType getType() {
+            return type;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public ParseVerdict getVerdict() {
+            return verdict;
+        }
+
+        public Machine getMachine() {
+            Machine m = machine;
+            if (m != null)
+                return m;
+            synchronized (this) {
+                if (machine == null) {
+                    m = type.create();
+                    m.parse(description);
+                    machine = m;
+                }
+                return machine;
+            }
+        }
+
+        public Machine borrow() {
+            Machine m = idle.poll();
+            if (m != null) {
+                idleCount.decrementAndGet();
+                return m;
+            }
+            m = type.create();
+            m.parse(description);
+            return m;
+        }
+
+        public void release(Machine m) {
+            if (idleCount.incrementAndGet() <= MAX_IDLE)
+                idle.add(m);
+            else
+                idleCount.decrementAndGet();
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T derive(Object key, Function<Machine, T> builder) {
+            Object value = derived.computeIfAbsent(key, k -> Objects.requireNonNullElse(builder.apply(getMachine()), NONE));
+            return value == NONE? null : (T) value;
+        }
+
+        private long weight() {
+            return weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package machines;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MachineImage {
+
+    public static final String EXTENSION = ".tmb";
+
+    static final int MAGIC = 0x544d4200;
+    static final int VERSION = 2;
+
+    private static final TransitionDirection[] DIRECTIONS = TransitionDirection.values();
+
+    public static boolean isImage(Path path) {
+        return path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        if (args.length != 3) {
+            System.err.println("Usage: <type> <description> <image" + EXTENSION + ">");
+            return;
+        }
+        Machine m = MachineType.valueOf(args[0].toUpperCase()).create();
+        m.parse(Files.readString(Path.of(args[1]))).throwFirstError();
+        write(m, Path.of(args[2]));
+    }
+
+
+
+    public static boolean supports(Machine m) {
+        return m.getClass() == TM.class || m.getClass() == MTM.class;
+    }
+
+    public static void write(Machine m, Path path) throws IOException {
+        if (!supports(m))
+            throw new IllegalArgumentException("Binary images support TM and MTM only");
+        int tapes = m.tapes();
+        ArrayList<Map.Entry<TransitionArgument, TransitionResult>> entries = new ArrayList<>(m.getTransitions().flatEntries());
+        int n = entries.size();
+
+        HashMap<String, Integer> ids = new HashMap<>();
+        ArrayList<byte[]> strings = new ArrayList<>();
+        int typeName = intern(MachineType.of(m).name(), ids, strings);
+        int[] settings = new int[4];
+        String[] settingValues = {m.getStartState(), m.getAcceptState(), m.getRejectState(), m.getBlank()};
+        for (int i = 0; i < settings.length; i++)
+            settings[i] = intern(settingValues[i], ids, strings);
+        int[] fromStates = new int[n], toStates = new int[n];
+        int[] fromSymbols = new int[n * tapes], toSymbols = new int[n * tapes];
+        byte[] dirs = new byte[n * tapes];
+        for (int i = 0; i < n; i++) {
+            TransitionArgument arg = entries.get(i).getKey();
+            TransitionResult res = entries.get(i).getValue();
+            fromStates[i] = intern(arg.getState(), ids, strings);
+            toStates[i] = intern(res.getState(), ids, strings);
+            for (int t = 0; t < tapes; t++) {
+                fromSymbols[i * tapes + t] = intern(arg.getSymbols()[t], ids, strings);
+                toSymbols[i * tapes + t] = intern(res.getSymbols()[t], ids, strings);
+                dirs[i * tapes + t] = (byte) res.getDirections()[t].ordinal();
+            }
+        }
+
+        int[] offsets = new int[strings.size() + 1];
+        for (int i = 0; i < strings.size(); i++)
+            offsets[i + 1] = offsets[i] + strings.get(i).length;
+        int blob = align(offsets[strings.size()]);
+        long size = 4L * (6 + offsets.length + settings.length + 1 + 2 * n + 2 * n * tapes) + blob + align(dirs.length);
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Machine is too large for a binary image");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(typeName).putInt(tapes);
+        buf.putInt(strings.size()).putInt(blob);
+        buf.asIntBuffer().put(offsets);
+        buf.position(buf.position() + 4 * offsets.length);
+        for (byte[] s : strings)
+            buf.put(s);
+        buf.position(buf.position() + blob - offsets[strings.size()]);
+        IntBuffer ints = buf.asIntBuffer();
+        ints.put(settings).put(n).put(fromStates).put(toStates).put(fromSymbols).put(toSymbols);
+        buf.position(buf.position() + 4 * ints.position());
+        buf.put(dirs);
+        buf.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining())
+                channel.write(buf);
+        }
+    }
+
+    public static Machine read(Path path) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buf.getInt() != MAGIC)
+                throw new IOException("Not a machine image: " + path);
+            if (buf.getInt() != VERSION)
+                throw new IOException("Unsupported machine image version: " + path);
+            int typeName = buf.getInt();
+            int tapes = buf.getInt();
+            int count = buf.getInt(), blob = buf.getInt();
+
+            IntBuffer offsets = buf.asIntBuffer();
+            int base = buf.position() + 4 * (count + 1);
+            String[] strings = new String[count];
+            buf.position(base);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[offsets.get(i + 1) - offsets.get(i)];
+                buf.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            buf.position(base + blob);
+            MachineType type = MachineType.valueOf(strings[typeName]);
+
+            IntBuffer ints = buf.asIntBuffer();
+            String start = strings[ints.get()], accept = strings[ints.get()], reject = strings[ints.get()], blank = strings[ints.get()];
+            int n = ints.get();
+            int fromStates = ints.position(), toStates = fromStates + n;
+            int fromSymbols = toStates + n, toSymbols = fromSymbols + n * tapes;
+            int dirs = buf.position() + 4 * (toSymbols + n * tapes);
+
+            // The mapped arrays are decoded into ordinary transition objects, so loading is O(transitions);
+            // the image saves parsing and validation, not the interpreter's per-transition footprint.
+            Transitions transitions = new Transitions(n);
+            for (int i = 0; i < n; i++) {
+                String from = strings[ints.get(fromStates + i)], to = strings[ints.get(toStates + i)];
+                if (tapes == 1 && type == MachineType.TURING) {
+                    transitions.set(new TransitionArgument(from, strings[ints.get(fromSymbols + i)]), new TransitionResult(
+                            to, strings[ints.get(toSymbols + i)], DIRECTIONS[buf.get(dirs + i)]));
+                } else {
+                    String[] fromSyms = new String[tapes], toSyms = new String[tapes];
+                    TransitionDirection[] dir = new TransitionDirection[tapes];
+                    for (int t = 0; t < tapes; t++) {
+                        fromSyms[t] = strings[ints.get(fromSymbols + i * tapes + t)];
+                        toSyms[t] = strings[ints.get(toSymbols + i * tapes + t)];
+                        dir[t] = DIRECTIONS[buf.get(dirs + i * tapes + t)];
+                    }
+                    transitions.set(new TransitionArgument(from, fromSyms), new TransitionResult(to, toSyms, dir));
+                }
+            }
+
+            switch (type) {
+                case TURING:
+                    return TM.with(start, accept, reject, blank, transitions);
+                case MULTITAPE:
+                    return MTM.with(tapes, start, accept, reject, blank, transitions);
+                default:
+                    throw new IOException("Unsupported machine type in image: " + type);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt machine image: " + path, e);
+        }
+    }
+
+
+
+    private static int intern(String s, HashMap<String, Integer> ids, ArrayList<byte[]> strings) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = strings.size();
+            ids.put(s, id);
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+}
@@ -0,0 +1,50 @@
+package machines;
+
+import java.util.*;
+
+public class MachineIndex {
+
+    private final ArrayList<String> states;
+    private final HashMap<String, Integer> stateIds = new HashMap<>();
+    private final ArrayList<TransitionArgument> transitions;
+    private final HashMap<TransitionArgument, Integer> transitionIds = new HashMap<>();
+
+    public MachineIndex(Machine m) {
+        states = new ArrayList<>(m.getStatesSet());
+        Collections.sort(states);
+        for (int i = 0; i < states.size(); i++)
+            stateIds.put(states.get(i), i);
+
+        transitions = new ArrayList<>(m.getTransitions().args());
+        Collections.sort(transitions);
+        for (int i = 0; i < transitions.size(); i++)
+            transitionIds.put(transitions.get(i), i);
+    }
+
+
+
+    public int states() {
+        return states.size();
+    }
+
+    public int transitions() {
+        return transitions.size();
+    }
+
+    public String getState(int id) {
+        return states.get(id);
+    }
+
+    public TransitionArgument getTransition(int id) {
+        return transitions.get(id);
+    }
+
+    public int stateId(String state) {
+        return state == null? -1 : stateIds.getOrDefault(state, -1);
+    }
+
+    public int transitionId(TransitionArgument arg) {
+        return arg == null? -1 : transitionIds.getOrDefault(arg, -1);
+    }
+
+}
@@ -0,0 +1,257 @@
+package machines;
+
+import machines.tape.Alphabet;
+import machines.tape.Tape;
+import machines.tape.Tapes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class MachineSnapshot {
+
+    private static final int MIN_RUNS = 16;
+
+    private final String[] states;
+    private final String[] symbols;
+    private final Tape[] cells;
+    private final String[][] tapes;
+    private final int[] heads;
+    private final long[] counters;
+    private final boolean finished;
+
+    public MachineSnapshot(String[] states, String[][] tapes, int[] heads, long[] counters, boolean finished) {
+        this.states = states;
+        this.symbols = null;
+        this.cells = null;
+        this.tapes = tapes;
+        this.heads = heads;
+        this.counters = counters;
+        this.finished = finished;
+    }
+
+    public MachineSnapshot(String[] states, String[] symbols, Tape[] cells, long[] counters, boolean finished) {
+        this.states = states;
+        this.symbols = symbols;
+        this.cells = cells;
+        this.tapes = null;
+        this.heads = null;
+        this.counters = counters;
+        this.finished = finished;
+    }
+
+    static MachineSnapshot of(String state, List<String> tape, int head) {
+        return new MachineSnapshot(new String[] {state}, new String[][] {tape.toArray(new String[0])},
+                new int[] {head}, new long[0], false);
+    }
+
+
+
+    public String getState() {
+        return states[0];
+    }
+
+    public String[] getStates() {
+        return states;
+    }
+
+    public int tapes() {
+        return cells != null? cells.length : tapes.length;
+    }
+
+    public long getTapeSize(int tape) {
+        return cells != null? cells[tape].size() : tapes[tape].length;
+    }
+
+    public long getHead(int tape) {
+        return cells != null? cells[tape].head() : heads[tape];
+    }
+
+    public String getSymbol(int tape, long i) {
+        return cells != null? symbols[cells[tape].get(i)] : tapes[tape][(int) i];
+    }
+
+    public long runLength(int tape, long i) {
+        if (cells != null)
+            return cells[tape].runLength(i);
+        String[] t = tapes[tape];
+        int to = (int) i + 1;
+        while (to < t.length && t[to].equals(t[(int) i]))
+            to++;
+        return to - i;
+    }
+
+    public String[] getTape(int tape) {
+        if (cells == null)
+            return tapes[tape];
+        String[] t = new String[Math.toIntExact(cells[tape].size())];
+        for (int i = 0; i < t.length; i++)
+            t[i] = symbols[cells[tape].get(i)];
+        return t;
+    }
+
+    public Tape getTape(int tape, Alphabet alphabet) {
+        int[] ids = new int[symbols == null? 0 : symbols.length];
+        boolean same = cells != null;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = alphabet.id(symbols[i]);
+            same &= ids[i] == i;
+        }
+        if (same)
+            return cells[tape].copy();
+
+        long size = getTapeSize(tape);
+        int[] runSymbols = new int[MIN_RUNS];
+        long[] runLengths = new long[MIN_RUNS];
+        int count = 0;
+        for (long i = 0, n; i < size; i += n) {
+            n = runLength(tape, i);
+            if (count == runSymbols.length) {
+                runSymbols = Arrays.copyOf(runSymbols, 2 * count);
+                runLengths = Arrays.copyOf(runLengths, 2 * count);
+            }
+            runSymbols[count] = cells != null? ids[cells[tape].get(i)] : alphabet.id(tapes[tape][(int) i]);
+            runLengths[count++] = n;
+        }
+        return Tapes.of(alphabet.blank(), runSymbols, runLengths, count, getHead(tape));
+    }
+
+    public long[] getCounters() {
+        return counters;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+
+
+    public void write(DataOutput out) throws IOException {
+        String[] table = symbols;
+        HashMap<String, Integer> ids = new HashMap<>();
+        if (cells == null) {
+            ArrayList<String> seen = new ArrayList<>();
+            for (String[] tape : tapes) {
+                for (String sym : tape) {
+                    if (ids.putIfAbsent(sym, seen.size()) == null)
+                        seen.add(sym);
+                }
+            }
+            table = seen.toArray(new String[0]);
+        }
+
+        out.writeInt(states.length);
+        for (String state : states)
+            writeString(out, state);
+        out.writeInt(table.length);
+        for (String sym : table)
+            writeString(out, sym);
+        out.writeBoolean(cells != null);
+        out.writeInt(tapes());
+        for (int t = 0; t < tapes(); t++) {
+            long size = getTapeSize(t);
+            writeVarLong(out, cells != null? cells[t].blank() : 0);
+            writeVarLong(out, getHead(t));
+            writeVarLong(out, size);
+            for (long i = 0, n; i < size; i += n) {
+                int sym = cells != null? cells[t].get(i) : ids.get(tapes[t][(int) i]);
+                n = runLength(t, i);
+                while (i + n < size && (cells != null? cells[t].get(i + n) : ids.get(tapes[t][(int) (i + n)])) == sym)
+                    n += runLength(t, i + n);
+                writeVarLong(out, sym);
+                writeVarLong(out, n);
+            }
+        }
+        out.writeInt(counters.length);
+        for (long c : counters)
+            out.writeLong(c);
+        out.writeBoolean(finished);
+    }
+
+    public static MachineSnapshot read(DataInput in) throws IOException {
+        String[] states = new String[in.readInt()];
+        for (int i = 0; i < states.length; i++)
+            states[i] = readString(in);
+        String[] symbols = new String[in.readInt()];
+        for (int i = 0; i < symbols.length; i++)
+            symbols[i] = readString(in);
+        boolean backed = in.readBoolean();
+        int n = in.readInt();
+        Tape[] cells = new Tape[n];
+        String[][] tapes = new String[n][];
+        int[] heads = new int[n];
+        for (int t = 0; t < n; t++) {
+            int blank = (int) readVarLong(in);
+            long head = readVarLong(in), size = readVarLong(in);
+            int[] runSymbols = new int[MIN_RUNS];
+            long[] runLengths = new long[MIN_RUNS];
+            int count = 0;
+            for (long i = 0; i < size; i += runLengths[count++]) {
+                if (count == runSymbols.length) {
+                    runSymbols = Arrays.copyOf(runSymbols, 2 * count);
+                    runLengths = Arrays.copyOf(runLengths, 2 * count);
+                }
+                runSymbols[count] = (int) readVarLong(in);
+                runLengths[count] = readVarLong(in);
+                if (runSymbols[count] < 0 || runSymbols[count] >= symbols.length || runLengths[count] <= 0)
+                    throw new IOException("Corrupt tape run");
+            }
+            if (backed) {
+                cells[t] = Tapes.of(blank, runSymbols, runLengths, count, head);
+            } else {
+                tapes[t] = new String[Math.toIntExact(size)];
+                heads[t] = Math.toIntExact(head);
+                for (int r = 0, at = 0; r < count; at += runLengths[r++])
+                    Arrays.fill(tapes[t], at, at + (int) runLengths[r], symbols[runSymbols[r]]);
+            }
+        }
+        long[] counters = new long[in.readInt()];
+        for (int i = 0; i < counters.length; i++)
+            counters[i] = in.readLong();
+        boolean finished = in.readBoolean();
+        return backed? new MachineSnapshot(states, symbols, cells, counters, finished)
+                : new MachineSnapshot(states, tapes, heads, counters, finished);
+    }
+
+
+
+    public static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Corrupt string length: " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Corrupt variable-length number");
+    }
+
+}
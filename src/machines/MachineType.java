@@ -1,5 +1,48 @@
 package machines;
 
 public enum MachineType {
-    ONEWAY, TURING, MULTITAPE, DFA, NFA, DCA, DPDA
+    ONEWAY, TURING, MULTITAPE, DFA, NFA, DCA, DPDA, NONDETERMINISTIC;
+
+    public Machine create() {
+        switch (this) {
+            case ONEWAY:
+                return new OneTM();
+            case TURING:
+                return new TM();
+            case MULTITAPE:
+                return new MTM();
+            case DFA:
+                return new DFA();
+            case NFA:
+                return new NFA();
+            case DCA:
+                return new DCA();
+            case DPDA:
+                return new DPDA();
+            case NONDETERMINISTIC:
+                return new NTM();
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    public static MachineType of(Machine m) {
+        if (m instanceof OneTM)
+            return ONEWAY;
+        if (m instanceof TM)
+            return TURING;
+        if (m instanceof MTM)
+            return MULTITAPE;
+        if (m instanceof DFA)
+            return DFA;
+        if (m instanceof NFA)
+            return NFA;
+        if (m instanceof DCA)
+            return DCA;
+        if (m instanceof DPDA)
+            return DPDA;
+        if (m instanceof NTM)
+            return NONDETERMINISTIC;
+        throw new IllegalArgumentException("Unknown machine type: " + m.getClass().getSimpleName());
+    }
 }
@@ -4,6 +4,7 @@ import javafx.scene.paint.Color;
 import machines.parser.MachineParser;
 import machines.parser.MachineParserSettings;
 import machines.parser.ParseVerdict;
+import machines.table.NFAMasks;
 import misc.Colors;
 import misc.Graph;
 
@@ -24,6 +25,9 @@ public class NFA extends Machine {
 
     private TreeSet<String> currentStates;
     private Graph<String> epsGraph;
+    private NFAMasks masks;
+    private boolean masksBuilt = false;
+    private long currentMask;
     private ArrayList<String> input;
     private int ptr;
 
@@ -55,6 +59,12 @@ public class NFA extends Machine {
         return parser;
     }
 
+    @Override
+    public ParseVerdict parse(String content) {
+        masksBuilt = false;
+        return super.parse(content);
+    }
+
     private ParseVerdict parseTransition(String[] args) {
         ParseVerdict verdict = new ParseVerdict();
         if (verdict.merge(parser.assertArgsCnt(4).apply(args)))
@@ -113,10 +123,12 @@ public class NFA extends Machine {
     }
 
     public boolean isInTerminalState() {
-        return ptr == input.size() || currentStates.isEmpty();
+        return ptr == input.size() || (masks != null? currentMask == 0 : currentStates.isEmpty());
     }
 
     private boolean acceptAndCurrentIntersects() {
+        if (masks != null)
+            return masks.isAccepting(currentMask);
         for (String ac : acceptStates) {
             if (currentStates.contains(ac))
                 return true;
@@ -146,9 +158,14 @@ public class NFA extends Machine {
 
 
     public void init(String input) {
-        buildEpsGraph();
-        currentStates = new TreeSet<>();
-        currentStates.addAll(epsGraph.bfs(startState));
+        if (masks() != null) {
+            currentMask = masks.getStart();
+            currentStates = masks.toStates(currentMask);
+        } else {
+            buildEpsGraph();
+            currentStates = new TreeSet<>();
+            currentStates.addAll(epsGraph.bfs(startState));
+        }
         this.input = new ArrayList<>();
         for (char c : input.toCharArray())
             this.input.add(Character.toString(c));
@@ -166,9 +183,22 @@ public class NFA extends Machine {
         return epsGraph;
     }
 
+    private NFAMasks masks() {
+        if (!masksBuilt) {
+            masks = NFAMasks.of(this);
+            masksBuilt = true;
+        }
+        return masks;
+    }
+
     public void makeStep() {
         if (isInTerminalState())
             return;
+        if (masks != null) {
+            currentMask = masks.step(currentMask, input.get(ptr++).charAt(0));
+            currentStates = masks.toStates(currentMask);
+            return;
+        }
         TreeSet<String> curStates = new TreeSet<>(currentStates);
         currentStates = new TreeSet<>();
         String curSymbol = input.get(ptr++);
@@ -179,21 +209,35 @@ public class NFA extends Machine {
         }
     }
 
+    public MachineSnapshot snapshot() {
+        return new MachineSnapshot(currentStates.toArray(new String[0]), new String[][] {input.toArray(new String[0])},
+                new int[] {ptr}, new long[0], false);
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        buildEpsGraph();
+        currentStates = new TreeSet<>(Arrays.asList(snapshot.getStates()));
+        if (masks() != null)
+            currentMask = masks.toMask(currentStates);
+        input = new ArrayList<>(Arrays.asList(snapshot.getTape(0)));
+        ptr = Math.toIntExact(snapshot.getHead(0));
+    }
+
 
 
-    public int getTapeSize(int tape) {
+    public long getTapeSize(int tape) {
         return Math.max(1, input.size());
     }
 
-    public String getTapeContent(int tape, int i) {
-        return input.isEmpty()? "" : input.get(i);
+    public String getTapeContent(int tape, long i) {
+        return input.isEmpty()? "" : input.get((int) i);
     }
 
-    public Color getTapeContentColor(int tape, int i) {
+    public Color getTapeContentColor(int tape, long i) {
         return input.isEmpty()? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
+    public boolean getTapeContentPointer(int tape, long i) {
         return i == ptr;
     }
 
@@ -0,0 +1,279 @@
+package machines;
+
+import javafx.scene.paint.Color;
+import machines.exec.NTMExplorer;
+import machines.exec.NTMExplorer.Configuration;
+import machines.parser.MachineParser;
+import machines.parser.MachineParserSettings;
+import machines.parser.ParseVerdict;
+import misc.Colors;
+
+import java.text.ParseException;
+import java.util.*;
+
+public class NTM extends Machine {
+
+    private static final String DEFAULT_START = "START";
+    private static final String DEFAULT_ACCEPT = "ACCEPT";
+    private static final String DEFAULT_REJECT = "REJECT";
+    private static final String DEFAULT_BLANK = "_";
+
+    private MachineParser parser;
+
+    private String startState = DEFAULT_START;
+    private String acceptState = DEFAULT_ACCEPT;
+    private String rejectState = DEFAULT_REJECT;
+    private String blankSymbol = DEFAULT_BLANK;
+    private Transitions transitions = new Transitions();
+
+    private NTMExplorer explorer;
+    private List<Configuration> currentBranches;
+    private int currentBranch;
+    private HashSet<Configuration> seen;
+
+    public static NTM with(String startState, String acceptState, String rejectState, String blankSymbol,
+                           Transitions transitions) {
+        NTM m = new NTM();
+        m.startState = startState;
+        m.acceptState = acceptState;
+        m.rejectState = rejectState;
+        m.blankSymbol = blankSymbol;
+        m.transitions = transitions;
+        return m;
+    }
+
+
+
+    public NTM() {
+        parser = new MachineParser();
+        parser.setNondeterministic();
+        parser.addSettings(new MachineParserSettings("start", (String[] args) -> startState = args[1]));
+        parser.addSettings(new MachineParserSettings("accept", (String[] args) -> acceptState = args[1]));
+        parser.addSettings(new MachineParserSettings("reject", (String[] args) -> rejectState = args[1]));
+        parser.addSettings(new MachineParserSettings("blank", (String[] args) -> blankSymbol = args[1]));
+        parser.addSettingsChecker(() -> MachineParser.assertSettingsEquals(this::getAcceptState, "accept state", this::getRejectState, "reject state"));
+        parser.addSettingsChecker(() -> MachineParser.assertSettingsEquals(this::getStartState, "start state", this::getAcceptState, "accept state"));
+        parser.addSettingsChecker(() -> MachineParser.assertSettingsEquals(this::getStartState, "start state", this::getRejectState, "reject state"));
+        parser.setMain(this::parseTransition);
+        parser.setFromStateExtractor(args -> args[0]);
+        parser.setToStateExtractor(args -> args[3]);
+        parser.setTransitionExtractor(args -> new TransitionArgument(args[0], args[1]));
+        parser.addPostChecker(() -> parser.checkBasicReachability(startState, acceptState, rejectState));
+    }
+
+    MachineParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public ParseVerdict parse(String content) {
+        explorer = null;
+        return super.parse(content);
+    }
+
+    private ParseVerdict parseTransition(String[] args) {
+        ParseVerdict verdict = new ParseVerdict();
+        if (verdict.merge(parser.assertArgsCnt(6).apply(args)))
+            return verdict;
+        if (verdict.merge(parser.assertArgEquals(2, "->").apply(args)))
+            return verdict;
+
+        String fromState = args[0];
+        String fromSymbol = args[1];
+        String toState = args[3];
+        String toSymbol = args[4];
+        try {
+            TransitionDirection dir = TransitionDirection.parse(args[5], parser.getLine());
+            transitions.add(Map.entry(new TransitionArgument(fromState, fromSymbol), new TransitionResult(toState, toSymbol, dir)));
+        } catch (ParseException ex) {
+            return verdict.putError(ex);
+        }
+        if (fromState.equals(acceptState))
+            verdict.putWarning(String.format("Line %s: transition from accept state", parser.getLine()));
+        else if (fromState.equals(rejectState))
+            verdict.putWarning(String.format("Line %s: transition from reject state", parser.getLine()));
+        return verdict;
+    }
+
+
+
+    public String getCurrentState() {
+        return explorer().getState(current());
+    }
+
+    public String getStartState() {
+        return startState;
+    }
+
+    public String getAcceptState() {
+        return acceptState;
+    }
+
+    public String getRejectState() {
+        return rejectState;
+    }
+
+    public String getBlank() {
+        return blankSymbol;
+    }
+
+    public Transitions getTransitions() {
+        return transitions;
+    }
+
+    public NTMExplorer explorer() {
+        if (explorer == null)
+            explorer = new NTMExplorer(this);
+        return explorer;
+    }
+
+
+
+    public Set<String> getStatesSet() {
+        HashSet<String> s = new HashSet<>(Set.of(startState, acceptState, rejectState));
+        for (Map.Entry<TransitionArgument, TransitionResult> tr : transitions.flatEntries()) {
+            s.add(tr.getKey().getState());
+            s.add(tr.getValue().getState());
+        }
+        return s;
+    }
+
+    public Set<String> getSymbolsSet() {
+        HashSet<String> s = new HashSet<>(Set.of(blankSymbol));
+        for (Map.Entry<TransitionArgument, TransitionResult> tr : transitions.flatEntries()) {
+            s.add(tr.getKey().getSymbol());
+            s.add(tr.getValue().getSymbol());
+        }
+        return s;
+    }
+
+
+
+    public void init(String input) {
+        currentBranches = List.of(explorer().initial(input));
+        currentBranch = 0;
+        seen = new HashSet<>(currentBranches);
+    }
+
+    // Like the explorer's breadth-first search, configurations seen on earlier steps are dropped and a step keeps
+    // at most maxConfigurations branches. Once the seen set outgrows that bound it is dropped and only the bound applies.
+    public void makeStep() {
+        if (isInTerminalState())
+            return;
+        long max = explorer.getMaxConfigurations();
+        LinkedHashSet<Configuration> live = new LinkedHashSet<>(), accepted = new LinkedHashSet<>(), rejected = new LinkedHashSet<>();
+        for (Configuration c : currentBranches) {
+            for (Configuration next : explorer.successors(c)) {
+                if (explorer.isAccepting(next))
+                    accepted.add(next);
+                else if (explorer.isRejecting(next) && rejected.size() < max)
+                    rejected.add(next);
+                else if (!explorer.isRejecting(next) && live.size() < max && (seen == null || seen.add(next)))
+                    live.add(next);
+            }
+        }
+        if (seen != null && seen.size() > max)
+            seen = null;
+        Configuration shown = current();
+        if (accepted.isEmpty() && live.isEmpty() && rejected.isEmpty())
+            rejected.add(explorer.rejecting(shown));
+        currentBranches = new ArrayList<>(!accepted.isEmpty()? accepted : !live.isEmpty()? live : rejected);
+        currentBranch = Math.min(currentBranch, currentBranches.size() - 1);
+        if (currentBranches.contains(shown))
+            currentBranch = currentBranches.indexOf(shown);
+    }
+
+    @Override
+    public RunVerdict run(String input, long maxSteps) {
+        init(input);
+        NTMExplorer.Result result = explorer.explore(input, maxSteps);
+        if (result.getAccepting() != null)
+            currentBranches = List.of(result.getAccepting());
+        seen = null;
+        return result.getVerdict();
+    }
+
+    public MachineSnapshot snapshot() {
+        Configuration c = current();
+        ArrayList<String> tape = new ArrayList<>();
+        for (int i = 0; i < c.getTapeSize(); i++)
+            tape.add(explorer.getSymbol(c, i));
+        return MachineSnapshot.of(explorer.getState(c), tape, c.getHead());
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        currentBranches = List.of(explorer().configuration(snapshot.getState(), snapshot.getTape(0), Math.toIntExact(snapshot.getHead(0))));
+        currentBranch = 0;
+        seen = new HashSet<>(currentBranches);
+    }
+
+
+
+    @Override
+    public int branches() {
+        return currentBranches.size();
+    }
+
+    @Override
+    public int getCurrentBranch() {
+        return currentBranch;
+    }
+
+    @Override
+    public void nextBranch() {
+        currentBranch = (currentBranch + 1) % currentBranches.size();
+    }
+
+    @Override
+    public void prevBranch() {
+        currentBranch = (currentBranch + currentBranches.size() - 1) % currentBranches.size();
+    }
+
+    private Configuration current() {
+        return currentBranches.get(currentBranch);
+    }
+
+
+
+    public long getTapeSize(int tape) {
+        return current().getTapeSize();
+    }
+
+    public String getTapeContent(int tape, long i) {
+        return explorer.isBlank(current(), (int) i)? "" : explorer.getSymbol(current(), (int) i);
+    }
+
+    public Color getTapeContentColor(int tape, long i) {
+        return explorer.isBlank(current(), (int) i)? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
+    }
+
+    public boolean getTapeContentPointer(int tape, long i) {
+        return i == current().getHead();
+    }
+
+
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (!startState.equals(DEFAULT_START)) sb.append("start: ").append(startState).append("\n");
+        if (!acceptState.equals(DEFAULT_ACCEPT)) sb.append("accept: ").append(acceptState).append("\n");
+        if (!rejectState.equals(DEFAULT_REJECT)) sb.append("reject: ").append(rejectState).append("\n");
+        if (!blankSymbol.equals(DEFAULT_BLANK)) sb.append("blank: ").append(blankSymbol).append("\n");
+
+        ArrayList<TransitionArgument> args = new ArrayList<>(transitions.args());
+        Collections.sort(args);
+        String lastState = null;
+        for (TransitionArgument arg : args) {
+            if (!arg.getState().equals(lastState))
+                sb.append("\n");
+            lastState = arg.getState();
+            for (TransitionResult res : transitions.getAll(arg)) {
+                sb.append(arg.getState()).append(' ').append(arg.getSymbol()).append(" -> ").append(res.getState())
+                        .append(' ').append(res.getSymbol()).append(' ').append(res.getDirection()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+}
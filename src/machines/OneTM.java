@@ -30,6 +30,7 @@ public class OneTM extends Machine {
     private String currentState;
     private LinkedList<String> currentBefore;
     private LinkedList<String> currentAfter;
+    private TransitionArgument lastTransition;
 
     public static OneTM with(
             String startState, String acceptState, String rejectState, String blankSymbol, String leftBound,
@@ -161,6 +162,7 @@ public class OneTM extends Machine {
 
     public void init(String input) {
         currentState = startState;
+        lastTransition = null;
         currentBefore = new LinkedList<>();
         currentBefore.addFirst(leftBound);
         currentAfter = input.chars()
@@ -172,6 +174,7 @@ public class OneTM extends Machine {
 
     public TransitionResult step(TransitionArgument arg) {
         TransitionResult result = transitions.get(arg);
+        lastTransition = result == null? null : arg;
         return Objects.requireNonNullElseGet(result, () -> defaultRejectResult(arg.getSymbol()));
     }
 
@@ -203,23 +206,42 @@ public class OneTM extends Machine {
         }
     }
 
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
+
+    public MachineSnapshot snapshot() {
+        ArrayList<String> tape = new ArrayList<>(currentBefore);
+        tape.addAll(currentAfter);
+        return MachineSnapshot.of(currentState, tape, currentBefore.size());
+    }
+
+    public void restore(MachineSnapshot snapshot) {
+        List<String> tape = Arrays.asList(snapshot.getTape(0));
+        int head = Math.toIntExact(snapshot.getHead(0));
+        currentState = snapshot.getState();
+        currentBefore = new LinkedList<>(tape.subList(0, head));
+        currentAfter = new LinkedList<>(tape.subList(head, tape.size()));
+        lastTransition = null;
+    }
+
 
 
-    public int getTapeSize(int tape) {
+    public long getTapeSize(int tape) {
         return currentBefore.size() + currentAfter.size();
     }
 
-    public String getTapeContent(int tape, int i) {
-        String content = getTapeContent0(i);
+    public String getTapeContent(int tape, long i) {
+        String content = getTapeContent0((int) i);
         return content.equals(leftBound) || content.equals(blankSymbol)? "" : content;
     }
 
-    public Color getTapeContentColor(int tape, int i) {
-        String content = getTapeContent0(i);
+    public Color getTapeContentColor(int tape, long i) {
+        String content = getTapeContent0((int) i);
         return content.equals(leftBound)? Colors.EXE_RED : content.equals(blankSymbol)? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
+    public boolean getTapeContentPointer(int tape, long i) {
         return i == currentBefore.size();
     }
 
@@ -0,0 +1,5 @@
+package machines;
+
+public enum RunVerdict {
+    ACCEPT, REJECT, UNDECIDED
+}
@@ -4,11 +4,14 @@ import javafx.scene.paint.Color;
 import machines.parser.MachineParser;
 import machines.parser.MachineParserSettings;
 import machines.parser.ParseVerdict;
+import machines.tape.Alphabet;
+import machines.tape.Tape;
+import machines.tape.TapeWindow;
+import machines.tape.Tapes;
 import misc.Colors;
 
 import java.text.ParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class TM extends Machine {
 
@@ -28,8 +31,12 @@ public class TM extends Machine {
     private Transitions transitions = new Transitions();
 
     private String currentState;
-    private LinkedList<String> currentBefore;
-    private LinkedList<String> currentAfter;
+    private Alphabet baseAlphabet;
+    private Alphabet alphabet;
+    private Tape tape;
+    private final TapeWindow window = new TapeWindow();
+    private int sinceAdapt;
+    private TransitionArgument lastTransition;
 
     public static TM with(String startState, String acceptState, String rejectState, String blankSymbol,
                           Transitions transitions) {
@@ -44,9 +51,7 @@ public class TM extends Machine {
 
     private static TM buildExeStub() {
         TM stub = new TM();
-        stub.currentState = stub.startState;
-        stub.currentBefore = new LinkedList<>();
-        stub.currentAfter = new LinkedList<>(List.of(stub.blankSymbol));
+        stub.init("");
         return stub;
     }
 
@@ -72,6 +77,12 @@ public class TM extends Machine {
         return parser;
     }
 
+    @Override
+    public ParseVerdict parse(String content) {
+        baseAlphabet = null;
+        return super.parse(content);
+    }
+
     private ParseVerdict parseTransition(String[] args) {
         ParseVerdict verdict = new ParseVerdict();
         if (verdict.merge(parser.assertArgsCnt(6).apply(args)))
@@ -146,17 +157,16 @@ public class TM extends Machine {
 
     public void init(String input) {
         currentState = startState;
-        currentBefore = new LinkedList<>();
-        currentBefore.addFirst(blankSymbol);
-        currentAfter = input.chars()
-                .mapToObj(n -> Character.toString((char) n))
-                .collect(Collectors.toCollection(LinkedList::new));
-        if (currentAfter.isEmpty() || !currentAfter.getLast().equals(blankSymbol))
-            currentAfter.addLast(blankSymbol);
+        lastTransition = null;
+        alphabet = baseAlphabet().copy();
+        tape = Tapes.of(alphabet.blank(), alphabet.encode(input), 0);
+        window.init(tape);
+        sinceAdapt = 0;
     }
 
     public TransitionResult step(TransitionArgument arg) {
         TransitionResult result = transitions.get(arg);
+        lastTransition = result == null? null : arg;
         return Objects.requireNonNullElseGet(result, () -> defaultRejectResult(arg.getSymbol()));
     }
 
@@ -166,61 +176,97 @@ public class TM extends Machine {
         TransitionArgument arg = new TransitionArgument(currentState, currentSymbol());
         TransitionResult result = step(arg);
         currentState = result.getState();
-        currentAfter.removeFirst();
-        currentAfter.addFirst(result.getSymbol());
-        switch (result.getDirection()) {
-            case RIGHT:
-                currentBefore.addLast(currentAfter.removeFirst());
-                if (currentAfter.isEmpty())
-                    currentAfter.add(blankSymbol);
-                else if (currentBefore.size() > 1 &&
-                        currentBefore.getFirst().equals(blankSymbol) &&
-                        currentBefore.get(1).equals(blankSymbol))
-                    currentBefore.removeFirst();
-                break;
-            case LEFT:
-                currentAfter.addFirst(currentBefore.removeLast());
-                if (currentBefore.isEmpty())
-                    currentBefore.add(blankSymbol);
-                /* falls */
-            case STAY:
-                if (currentAfter.size() > 1 &&
-                        currentAfter.getLast().equals(blankSymbol) &&
-                        currentAfter.get(currentAfter.size() - 2).equals(blankSymbol))
-                    currentAfter.removeLast();
-                else if (!currentAfter.getLast().equals(blankSymbol))
-                    currentAfter.addLast(blankSymbol);
+        tape.write(alphabet.id(result.getSymbol()));
+        tape.move(result.getDirection().getShift());
+        window.moved(tape, result.getDirection().getShift());
+        if (++sinceAdapt == Tapes.ADAPT_PERIOD) {
+            sinceAdapt = 0;
+            tape = Tapes.adapt(tape);
+        }
+    }
+
+    @Override
+    public RunVerdict run(String input, long maxSteps) {
+        init(input);
+        long steps = 0;
+        while (steps < maxSteps && !isInTerminalState()) {
+            TransitionArgument arg = new TransitionArgument(currentState, currentSymbol());
+            TransitionResult result = transitions.get(arg);
+            if (result == null || !result.getState().equals(currentState) || !result.getSymbol().equals(arg.getSymbol())
+                    || result.getDirection() == TransitionDirection.STAY) {
+                makeStep();
+                steps++;
+                continue;
+            }
+            int shift = result.getDirection().getShift();
+            long run = tape.runRemaining(shift);
+            boolean toEdge = shift > 0? tape.head() + run == tape.size() : run == tape.head() + 1;
+            lastTransition = arg;
+            if (toEdge && tape.read() == alphabet.blank())
                 break;
+            long cells = Math.min(run, maxSteps - steps);
+            tape.skip(cells, shift);
+            steps += cells;
         }
+        window.reset(tape);
+        if (isInAcceptState())
+            return RunVerdict.ACCEPT;
+        if (isInTerminalState())
+            return RunVerdict.REJECT;
+        return RunVerdict.UNDECIDED;
     }
 
+    public TransitionArgument getLastTransition() {
+        return lastTransition;
+    }
 
+    public MachineSnapshot snapshot() {
+        return new MachineSnapshot(new String[] {currentState}, alphabet.symbols(), new Tape[] {tape.copy()}, new long[0], false);
+    }
 
-    public int getTapeSize(int tape) {
-        return currentBefore.size() + currentAfter.size();
+    public void restore(MachineSnapshot snapshot) {
+        currentState = snapshot.getState();
+        alphabet = baseAlphabet().copy();
+        tape = snapshot.getTape(0, alphabet);
+        window.reset(tape);
+        sinceAdapt = 0;
+        lastTransition = null;
     }
 
-    public String getTapeContent(int tape, int i) {
-        String content = getTapeContent0(i);
-        return content.equals(blankSymbol)? "" : content;
+
+
+    public long getTapeSize(int tape) {
+        return window.size();
     }
 
-    public Color getTapeContentColor(int tape, int i) {
-        return getTapeContent0(i).equals(blankSymbol)? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
+    public String getTapeContent(int tape, long i) {
+        int content = window.get(this.tape, i);
+        return content == alphabet.blank()? "" : alphabet.symbol(content);
     }
 
-    public boolean getTapeContentPointer(int tape, int i) {
-        return i == currentBefore.size();
+    public Color getTapeContentColor(int tape, long i) {
+        return window.get(this.tape, i) == alphabet.blank()? Colors.EXE_BLANK : Colors.EXE_DEFAULT;
     }
 
-    private String getTapeContent0(int i) {
-        return i < currentBefore.size()? currentBefore.get(i) : currentAfter.get(i - currentBefore.size());
+    public boolean getTapeContentPointer(int tape, long i) {
+        return i == window.head();
+    }
+
+    @Override
+    public long getTapeHead(int tape) {
+        return window.head();
     }
 
 
 
+    private Alphabet baseAlphabet() {
+        if (baseAlphabet == null)
+            baseAlphabet = new Alphabet(blankSymbol, getSymbolsSet());
+        return baseAlphabet;
+    }
+
     private String currentSymbol() {
-        return currentAfter.getFirst();
+        return alphabet.symbol(tape.read());
     }
 
     public TransitionResult defaultRejectResult(String symbol) {
@@ -21,6 +21,19 @@ public enum TransitionDirection {
         }
     }
 
+    public int getShift() {
+        switch (this) {
+            case RIGHT:
+                return 1;
+            case LEFT:
+                return -1;
+            case STAY:
+                return 0;
+            default:
+                throw new AssertionError();
+        }
+    }
+
     public TransitionDirection reverse() {
         switch (this) {
             case RIGHT:
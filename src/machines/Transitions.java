@@ -8,7 +8,15 @@ import java.util.stream.Collectors;
 
 public class Transitions {
 
-    public HashMap<TransitionArgument, List<TransitionResult>> map = new HashMap<>();
+    public HashMap<TransitionArgument, List<TransitionResult>> map;
+
+    public Transitions() {
+        map = new HashMap<>();
+    }
+
+    public Transitions(int expectedSize) {
+        map = new HashMap<>(expectedSize * 4 / 3 + 1);
+    }
 
 
 
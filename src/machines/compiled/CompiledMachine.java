@@ -0,0 +1,92 @@
+package machines.compiled;
+
+import machines.RunVerdict;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class CompiledMachine {
+
+    static final int ACCEPT = -1;
+    static final int REJECT = -2;
+
+    private static final long SLICE_STEPS = 1 << 20;
+
+    private final Runner runner;
+    private final boolean dfa;
+    private final int tapes;
+    private final int start;
+    private final String[] states;
+    private final String accept, reject;
+    private final boolean[] accepting;
+    private final HashMap<Character, Integer> inputIds;
+    private final int blank, other;
+
+    CompiledMachine(Runner runner, boolean dfa, int tapes, int start, String[] states, String accept, String reject,
+                    boolean[] accepting, HashMap<Character, Integer> inputIds, int blank, int other) {
+        this.runner = runner;
+        this.dfa = dfa;
+        this.tapes = tapes;
+        this.start = start;
+        this.states = states;
+        this.accept = accept;
+        this.reject = reject;
+        this.accepting = accepting;
+        this.inputIds = inputIds;
+        this.blank = blank;
+        this.other = other;
+    }
+
+
+
+    public RunVerdict run(String input, long maxSteps) {
+        return execute(input, maxSteps).getVerdict();
+    }
+
+    public CompiledRun execute(String input, long maxSteps) {
+        return execute(input, maxSteps, Long.MAX_VALUE);
+    }
+
+    public CompiledRun execute(String input, long maxSteps, long deadlineNanos) {
+        int[][] tape = new int[tapes][];
+        int[] heads = new int[tapes];
+        int[] state = {start};
+        if (dfa) {
+            tape[0] = new int[input.length()];
+            for (int i = 0; i < input.length(); i++)
+                tape[0][i] = inputIds.getOrDefault(input.charAt(i), other);
+        } else {
+            for (int t = 0; t < tapes; t++) {
+                tape[t] = new int[Math.max(16, 2 * (t == 0? input.length() + 2 : 0))];
+                Arrays.fill(tape[t], blank);
+                heads[t] = 1;
+            }
+            for (int i = 0; i < input.length(); i++)
+                tape[0][i + 1] = inputIds.getOrDefault(input.charAt(i), other);
+        }
+
+        long steps = 0;
+        while (steps < maxSteps) {
+            long slice = Math.min(SLICE_STEPS, maxSteps - steps);
+            long done = runner.run(tape, heads, state, slice);
+            steps += done;
+            if (done < slice || System.nanoTime() > deadlineNanos)
+                break;
+        }
+
+        String name = state[0] == ACCEPT? accept : state[0] == REJECT? reject : states[state[0]];
+        RunVerdict verdict;
+        if (dfa) {
+            if (heads[0] == input.length() && state[0] >= 0 && accepting[state[0]])
+                verdict = RunVerdict.ACCEPT;
+            else if (heads[0] == input.length() || state[0] == REJECT)
+                verdict = RunVerdict.REJECT;
+            else
+                verdict = RunVerdict.UNDECIDED;
+        } else {
+            verdict = state[0] == ACCEPT? RunVerdict.ACCEPT : state[0] == REJECT? RunVerdict.REJECT : RunVerdict.UNDECIDED;
+        }
+        return new CompiledRun(name, steps, verdict);
+    }
+
+}
@@ -0,0 +1,29 @@
+package machines.compiled;
+
+import machines.RunVerdict;
+
+public class CompiledRun {
+
+    private final String state;
+    private final long steps;
+    private final RunVerdict verdict;
+
+    CompiledRun(String state, long steps, RunVerdict verdict) {
+        this.state = state;
+        this.steps = steps;
+        this.verdict = verdict;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public RunVerdict getVerdict() {
+        return verdict;
+    }
+
+}
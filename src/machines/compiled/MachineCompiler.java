@@ -0,0 +1,277 @@
+package machines.compiled;
+
+import machines.*;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+
+public class MachineCompiler {
+
+    private static final String PACKAGE = "machines.compiled.generated";
+    private static final int MAX_TRANSITIONS = 50_000;
+    private static final int MAX_CACHED = 64;
+    private static final boolean AVAILABLE = ToolProvider.getSystemJavaCompiler() != null;
+
+    // Each compiled machine owns its class loader, so evicting an entry lets its generated class be unloaded.
+    private static final LinkedHashMap<String, Optional<CompiledMachine>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Optional<CompiledMachine>> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    public static CompiledMachine compile(Machine m) {
+        if (!AVAILABLE)
+            return null;
+        String fingerprint = m.fingerprint();
+        Optional<CompiledMachine> compiled;
+        synchronized (cache) {
+            compiled = cache.get(fingerprint);
+        }
+        if (compiled == null) {
+            compiled = Optional.ofNullable(compile(m, fingerprint));
+            synchronized (cache) {
+                cache.put(fingerprint, compiled);
+            }
+        }
+        return compiled.orElse(null);
+    }
+
+    public static RunVerdict run(Machine m, String input, long maxSteps) {
+        CompiledMachine compiled = compile(m);
+        return compiled == null? m.run(input, maxSteps) : compiled.run(input, maxSteps);
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+
+
+    private static CompiledMachine compile(Machine m, String fingerprint) {
+        boolean dfa = m.getClass() == DFA.class;
+        if (!dfa && m.getClass() != TM.class && m.getClass() != MTM.class)
+            return null;
+        if (m.getTransitions().args().size() > MAX_TRANSITIONS)
+            return null;
+
+        int tapes = m.tapes();
+        String accept = dfa? null : m.getAcceptState();
+        String reject = m.getRejectState();
+
+        TreeSet<String> stSet = new TreeSet<>(m.getStatesSet());
+        stSet.remove(reject);
+        if (accept != null)
+            stSet.remove(accept);
+        String[] states = stSet.toArray(new String[0]);
+        HashMap<String, Integer> stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++)
+            stateIds.put(states[i], i);
+        stateIds.put(reject, CompiledMachine.REJECT);
+        if (accept != null)
+            stateIds.put(accept, CompiledMachine.ACCEPT);
+
+        TreeSet<String> symSet = new TreeSet<>();
+        for (TransitionArgument arg : m.getTransitions().args()) {
+            symSet.addAll(Arrays.asList(arg.getSymbols()));
+            if (!dfa)
+                symSet.addAll(Arrays.asList(m.getTransitions().get(arg).getSymbols()));
+        }
+        if (!dfa)
+            symSet.add(m.getBlank());
+        String[] symbols = symSet.toArray(new String[0]);
+        HashMap<String, Integer> symbolIds = new HashMap<>();
+        HashMap<Character, Integer> inputIds = new HashMap<>();
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIds.put(symbols[i], i);
+            if (symbols[i].length() == 1)
+                inputIds.put(symbols[i].charAt(0), i);
+        }
+        int other = symbols.length;
+        long keys = 1;
+        for (int i = 0; i < tapes; i++)
+            keys *= other + 1;
+        if (keys > Integer.MAX_VALUE)
+            return null;
+
+        boolean[] accepting = new boolean[states.length];
+        if (dfa) {
+            for (String st : ((DFA) m).getAcceptStates()) {
+                if (stateIds.getOrDefault(st, -1) >= 0)
+                    accepting[stateIds.get(st)] = true;
+            }
+        }
+
+        String className = "Machine_" + fingerprint.substring(0, 16);
+        String source = dfa? dfaSource(className, m, states, stateIds, symbolIds)
+                : tmSource(className, m, tapes, other, states, stateIds, symbolIds);
+        Runner runner = load(className, source);
+        if (runner == null)
+            return null;
+        return new CompiledMachine(runner, dfa, tapes, stateIds.get(m.getStartState()), states, accept, reject,
+                accepting, inputIds, dfa? -1 : symbolIds.get(m.getBlank()), other);
+    }
+
+    private static String tmSource(String className, Machine m, int tapes, int other, String[] states,
+                                   HashMap<String, Integer> stateIds, HashMap<String, Integer> symbolIds) {
+        StringBuilder sb = header(className);
+        sb.append("    public long run(int[][] t, int[] h, int[] state, long maxSteps) {\n");
+        sb.append("        int st = state[0];\n");
+        sb.append("        long steps = 0;\n");
+        sb.append("        while (steps < maxSteps && st >= 0) {\n");
+        sb.append("            switch (st) {\n");
+        for (int i = 0; i < states.length; i++)
+            sb.append("                case ").append(i).append(": st = s").append(i).append("(t, h); break;\n");
+        sb.append("            }\n");
+        sb.append("            steps++;\n");
+        for (int i = 0; i < tapes; i++) {
+            sb.append("            if (h[").append(i).append("] < 0 || h[").append(i).append("] >= t[").append(i)
+                    .append("].length) machines.compiled.Tapes.grow(t, h, ").append(i).append(", ")
+                    .append(symbolIds.get(m.getBlank())).append(");\n");
+        }
+        sb.append("        }\n");
+        sb.append("        state[0] = st;\n");
+        sb.append("        return steps;\n");
+        sb.append("    }\n");
+
+        HashMap<String, List<TransitionArgument>> byState = byState(m);
+        for (int i = 0; i < states.length; i++) {
+            sb.append("\n    private static int s").append(i).append("(int[][] t, int[] h) {\n");
+            sb.append("        int key = ");
+            for (int k = 0; k < tapes; k++)
+                sb.append(k == 0? "" : " + ").append("t[").append(k).append("][h[").append(k).append("]] * ").append(pow(other + 1, k));
+            sb.append(";\n");
+            sb.append("        switch (key) {\n");
+            for (TransitionArgument arg : byState.getOrDefault(states[i], List.of())) {
+                TransitionResult res = m.getTransitions().get(arg);
+                String[] from = arg.getSymbols(), to = res.getSymbols();
+                long key = 0;
+                for (int k = 0; k < tapes; k++)
+                    key += symbolIds.get(from[k]) * pow(other + 1, k);
+                sb.append("            case ").append(key).append(":\n");
+                for (int k = 0; k < tapes; k++) {
+                    if (!from[k].equals(to[k]))
+                        sb.append("                t[").append(k).append("][h[").append(k).append("]] = ").append(symbolIds.get(to[k])).append(";\n");
+                    if (res.getDirections()[k] == TransitionDirection.RIGHT)
+                        sb.append("                h[").append(k).append("]++;\n");
+                    else if (res.getDirections()[k] == TransitionDirection.LEFT)
+                        sb.append("                h[").append(k).append("]--;\n");
+                }
+                sb.append("                return ").append(stateIds.get(res.getState())).append(";\n");
+            }
+            sb.append("            default:\n");
+            sb.append("                return ").append(CompiledMachine.REJECT).append(";\n");
+            sb.append("        }\n");
+            sb.append("    }\n");
+        }
+        return sb.append("\n}\n").toString();
+    }
+
+    private static String dfaSource(String className, Machine m, String[] states,
+                                    HashMap<String, Integer> stateIds, HashMap<String, Integer> symbolIds) {
+        StringBuilder sb = header(className);
+        sb.append("    public long run(int[][] t, int[] h, int[] state, long maxSteps) {\n");
+        sb.append("        int[] in = t[0];\n");
+        sb.append("        int st = state[0], p = h[0];\n");
+        sb.append("        long steps = 0;\n");
+        sb.append("        while (steps < maxSteps && st >= 0 && p < in.length) {\n");
+        sb.append("            switch (st) {\n");
+        for (int i = 0; i < states.length; i++)
+            sb.append("                case ").append(i).append(": st = s").append(i).append("(in[p]); break;\n");
+        sb.append("            }\n");
+        sb.append("            p++;\n");
+        sb.append("            steps++;\n");
+        sb.append("        }\n");
+        sb.append("        state[0] = st;\n");
+        sb.append("        h[0] = p;\n");
+        sb.append("        return steps;\n");
+        sb.append("    }\n");
+
+        HashMap<String, List<TransitionArgument>> byState = byState(m);
+        for (int i = 0; i < states.length; i++) {
+            sb.append("\n    private static int s").append(i).append("(int sym) {\n");
+            sb.append("        switch (sym) {\n");
+            for (TransitionArgument arg : byState.getOrDefault(states[i], List.of())) {
+                sb.append("            case ").append(symbolIds.get(arg.getSymbol())).append(": return ")
+                        .append(stateIds.get(m.getTransitions().get(arg).getState())).append(";\n");
+            }
+            sb.append("            default: return ").append(CompiledMachine.REJECT).append(";\n");
+            sb.append("        }\n");
+            sb.append("    }\n");
+        }
+        return sb.append("\n}\n").toString();
+    }
+
+    private static StringBuilder header(String className) {
+        return new StringBuilder("package ").append(PACKAGE).append(";\n\n")
+                .append("public final class ").append(className).append(" implements machines.compiled.Runner {\n\n");
+    }
+
+    private static HashMap<String, List<TransitionArgument>> byState(Machine m) {
+        HashMap<String, List<TransitionArgument>> byState = new HashMap<>();
+        ArrayList<TransitionArgument> args = new ArrayList<>(m.getTransitions().args());
+        Collections.sort(args);
+        for (TransitionArgument arg : args)
+            byState.computeIfAbsent(arg.getState(), st -> new ArrayList<>()).add(arg);
+        return byState;
+    }
+
+    private static long pow(long base, int exp) {
+        long res = 1;
+        for (int i = 0; i < exp; i++)
+            res *= base;
+        return res;
+    }
+
+
+
+    private static Runner load(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            return null;
+        HashMap<String, ByteArrayOutputStream> classes = new HashMap<>();
+        StandardJavaFileManager std = compiler.getStandardFileManager(null, null, null);
+        JavaFileManager fm = new ForwardingJavaFileManager<>(std) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        classes.put(name, out);
+                        return out;
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + PACKAGE.replace('.', '/') + "/" + className
+                + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-g:none");
+        if (!compiler.getTask(null, fm, new DiagnosticCollector<>(), options, null, List.of(file)).call())
+            return null;
+
+        ClassLoader loader = new ClassLoader(MachineCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classes.get(name);
+                if (bytes == null)
+                    throw new ClassNotFoundException(name);
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            }
+        };
+        try {
+            return (Runner) loader.loadClass(PACKAGE + "." + className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
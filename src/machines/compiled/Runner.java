@@ -0,0 +1,7 @@
+package machines.compiled;
+
+public interface Runner {
+
+    long run(int[][] tapes, int[] heads, int[] state, long maxSteps);
+
+}
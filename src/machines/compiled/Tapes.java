@@ -0,0 +1,17 @@
+package machines.compiled;
+
+import java.util.Arrays;
+
+public class Tapes {
+
+    public static void grow(int[][] tapes, int[] heads, int tape, int blank) {
+        int[] old = tapes[tape];
+        int[] grown = new int[old.length * 2];
+        int shift = heads[tape] < 0? old.length : 0;
+        Arrays.fill(grown, blank);
+        System.arraycopy(old, 0, grown, shift, old.length);
+        tapes[tape] = grown;
+        heads[tape] += shift;
+    }
+
+}
@@ -4,6 +4,8 @@ import machines.*;
 import misc.Graph;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -80,6 +82,10 @@ public class Convert {
         }
     }
 
+    public static DFAProduct product(List<DFA> dfas) {
+        return new DFAProduct(dfas);
+    }
+
 
 
     private static Machine noStayConvert(Machine m) {
@@ -113,54 +119,53 @@ public class Convert {
 
         newTransitions.setAll(m.getTransitions().selectByResult(res -> res.getDirection() != STAY));
 
-        HashSet<TransitionArgument> visited = new HashSet<>();
-        Graph<TransitionArgument> stayClosure = new Graph<>();
+        Graph<TransitionArgument> stayGraph = new Graph<>();
         m.getTransitions().select(arg -> !arg.getState().equals(accept) && !arg.getState().equals(reject))
-                .selectByResult(res -> res.getDirection() == STAY).forEach((arg, res) -> stayClosure.addEdge(arg, res.asArgument()));
-
-        for (TransitionArgument arg : stayClosure.getVertices()) {
-            if (!visited.contains(arg)) {
-                TransitionArgument curArg = arg.copy();
-                HashSet<TransitionArgument> curVisited = new HashSet<>(List.of(curArg));
-                TransitionArgument lastArg = stayClosure.edgeFrom(curArg);
-                while (true) {
-                    if (lastArg == null || visited.contains(curArg)) {
-                        TransitionResult res = newTransitions.get(curArg);
-                        if (res != null) {
-                            for (TransitionArgument vis : curVisited)
-                                newTransitions.set(vis, res);
-                        }
-                        break;
-                    } else if (lastArg.getState().equals(accept) || lastArg.getState().equals(reject)) {
-                        TransitionResult res = m.getTransitions().get(curArg);
-                        if (res.getDirection() == STAY) {
-                            for (TransitionArgument vis : curVisited) {
-                                if (vis.getSymbol().equals(bd))
-                                    newTransitions.set(vis, states.get("back-2", res.getState()), vis.getSymbol(), RIGHT);
-                                else
-                                    newTransitions.set(vis, states.get("back", res.getState()), vis.getSymbol(), LEFT);
-                            }
-                        } else {
-                            for (TransitionArgument vis : curVisited)
-                                newTransitions.set(vis, res);
-                        }
-                        break;
-                    } else if (curVisited.contains(lastArg)) {
-                        for (TransitionArgument vis : curVisited) {
-                            if (vis.getSymbol().equals(bd))
-                                newTransitions.set(vis, states.get("ilr"), vis.getSymbol(), RIGHT);
-                            else
-                                newTransitions.set(vis, states.get("ill"), vis.getSymbol(), LEFT);
-                        }
-                        break;
-                    } else {
-                        curArg = lastArg.copy();
-                        curVisited.add(curArg);
-                        lastArg = stayClosure.edgeFrom(curArg);
-                    }
+                .selectByResult(res -> res.getDirection() == STAY).forEach((arg, res) -> stayGraph.addEdge(arg, res.asArgument()));
+
+        HashSet<TransitionArgument> resolved = new HashSet<>();
+        HashSet<TransitionArgument> onPath = new HashSet<>();
+        ArrayList<TransitionArgument> path = new ArrayList<>();
+        for (TransitionArgument arg : stayGraph.getVertices()) {
+            checkCancelled();
+            if (resolved.contains(arg))
+                continue;
+            path.clear();
+            onPath.clear();
+            TransitionArgument cur = arg, next = stayGraph.edgeFrom(arg);
+            path.add(cur);
+            onPath.add(cur);
+            while (next != null && !resolved.contains(cur) && !next.getState().equals(accept)
+                    && !next.getState().equals(reject) && !onPath.contains(next)) {
+                cur = next;
+                next = stayGraph.edgeFrom(cur);
+                path.add(cur);
+                onPath.add(cur);
+            }
+
+            if (next == null || resolved.contains(cur)) {
+                TransitionResult res = newTransitions.get(cur);
+                if (res != null) {
+                    for (TransitionArgument vis : path)
+                        newTransitions.set(vis, res);
+                }
+            } else if (next.getState().equals(accept) || next.getState().equals(reject)) {
+                String term = m.getTransitions().get(cur).getState();
+                for (TransitionArgument vis : path) {
+                    if (vis.getSymbol().equals(bd))
+                        newTransitions.set(vis, states.get("back-2", term), vis.getSymbol(), RIGHT);
+                    else
+                        newTransitions.set(vis, states.get("back", term), vis.getSymbol(), LEFT);
+                }
+            } else {
+                for (TransitionArgument vis : path) {
+                    if (vis.getSymbol().equals(bd))
+                        newTransitions.set(vis, states.get("ilr"), vis.getSymbol(), RIGHT);
+                    else
+                        newTransitions.set(vis, states.get("ill"), vis.getSymbol(), LEFT);
                 }
-                visited.addAll(curVisited);
             }
+            resolved.addAll(path);
         }
 
 
@@ -517,6 +522,7 @@ public class Convert {
 
         ArrayList<Map.Entry<TransitionArgument, TransitionResult>> trEnum = new ArrayList<>(m.getTransitions().flatEntries());
         intRange(trEnum.size()).forEach(trI -> intRange(n).forEach(sz -> {
+            checkCancelled();
             states.to("23").add(List.of(toStr(trI), toStr(sz)), "exe-tr" + (trI + 1) + "-" + (sz + 1));
             states.to("23-mark").add(List.of(toStr(trI), toStr(sz)), "exe-tr" + (trI + 1) + "-" + sz + "-mark");
         }));
@@ -606,6 +612,7 @@ public class Convert {
         // 2.3. execute step
 
         intRange(trEnum.size()).forEach(trI -> intRange(n).forEach(sz -> {
+            checkCancelled();
             syms.selectOnly("sep").to("src").selectOnly(sz == n - 1? List.of() : symSetOf[n - 2 - sz]).selectOnly(symSetOf[n - 1 - sz]).forEachSelected(
                     newTransitions.goRight(states.get(List.of(toStr(trI), toStr(sz)), "23"))
             );
@@ -942,38 +949,65 @@ public class Convert {
         Set<String> newAccept = new TreeSet<>();
 
         String start = noEps.getStartState(), eps = noEps.getEps();
-        Set<String> stSet = noEps.getStatesSet(), symSet = noEps.getSymbolsSet();
-
-        NamespaceTree states = new NamespaceTree();
-        states.addAll("src", "set")
-                .to("src").addAll(stSet).also()
-                .to("set").addAllLists(subsets(stSet), ls -> ls.isEmpty()? "none" : String.join("/", ls));
-
-        NamespaceTree syms = new NamespaceTree();
-        syms.addAll("src").to("src").addAll(symSet);
+        Set<String> stSet = noEps.getStatesSet();
+        ArrayList<String> stList = toList(stSet);
+        ArrayList<String> symList = toList(new TreeSet<>(noEps.getSymbolsSet()));
+        symList.remove(eps);
+
+        HashMap<String, Integer> stIds = new HashMap<>();
+        for (int i = 0; i < stList.size(); i++)
+            stIds.put(stList.get(i), i);
+        BitSet[][] succ = new BitSet[symList.size()][stList.size()];
+        for (int k = 0; k < symList.size(); k++) {
+            for (int i = 0; i < stList.size(); i++) {
+                succ[k][i] = new BitSet();
+                for (TransitionResult res : noEps.getTransitions().getAll(stList.get(i), symList.get(k)))
+                    succ[k][i].set(stIds.get(res.getState()));
+            }
+        }
 
-        LinkedList<TreeSet<String>> q = new LinkedList<>(List.of(new TreeSet<>(List.of(start))));
-        HashSet<TreeSet<String>> visited = new HashSet<>();
-        while (!q.isEmpty()) {
-            TreeSet<String> curState = q.removeFirst();
-            visited.add(curState);
-            String curStateSt = states.get(curState, "set");
-            if (curState.stream().anyMatch(curSt -> noEps.getAcceptStates().contains(curSt)))
-                newAccept.add(curStateSt);
-            syms.to("src").selectWithout(eps).forEachSelected(sym -> {
-                TreeSet<String> toState = curState.stream().map(curSt -> noEps.getTransitions().getAll(curSt, sym))
-                        .flatMap(List::stream).map(TransitionResult::getState).collect(Collectors.toCollection(TreeSet::new));
-                if (!toState.isEmpty()) {
-                    newTransitions.set(states.get(curState, "set"), sym, states.get(toState, "set"));
-                    if (!visited.contains(toState))
-                        q.addLast(toState);
+        BitSet startSet = new BitSet();
+        startSet.set(stIds.get(start));
+        ConcurrentHashMap<BitSet, BitSet[]> rows = new ConcurrentHashMap<>();
+        rows.put(startSet, new BitSet[symList.size()]);
+        List<BitSet> frontier = List.of(startSet);
+        Thread caller = Thread.currentThread();
+        while (!frontier.isEmpty()) {
+            ConcurrentLinkedQueue<BitSet> next = new ConcurrentLinkedQueue<>();
+            frontier.parallelStream().forEach(cur -> {
+                if (caller.isInterrupted())
+                    return;
+                BitSet[] row = rows.get(cur);
+                for (int k = 0; k < symList.size(); k++) {
+                    BitSet to = new BitSet();
+                    for (int i = cur.nextSetBit(0); i >= 0; i = cur.nextSetBit(i + 1))
+                        to.or(succ[k][i]);
+                    if (to.isEmpty())
+                        continue;
+                    if (rows.putIfAbsent(to, new BitSet[symList.size()]) == null)
+                        next.add(to);
+                    row[k] = to;
                 }
             });
+            checkCancelled();
+            frontier = new ArrayList<>(next);
         }
 
-        return DFA.with(states.get(List.of(start), "set"), newAccept, newTransitions);
-    }
+        HashMap<BitSet, String> names = new SubsetNames(stList).name(rows.keySet());
+        for (BitSet set : rows.keySet()) {
+            if (set.stream().anyMatch(i -> noEps.getAcceptStates().contains(stList.get(i))))
+                newAccept.add(names.get(set));
+        }
 
+        for (Map.Entry<BitSet, BitSet[]> row : rows.entrySet()) {
+            for (int k = 0; k < symList.size(); k++) {
+                if (row.getValue()[k] != null)
+                    newTransitions.set(names.get(row.getKey()), symList.get(k), names.get(row.getValue()[k]));
+            }
+        }
+
+        return DFA.with(names.get(startSet), newAccept, newTransitions);
+    }
 
     private static TM dfaTmConvert(DFA m) {
         String start = m.getStartState();
@@ -1460,6 +1494,7 @@ public class Convert {
             if (arg.size() != counters + 1) {
                 int mod = p[counters - arg.size()];
                 for (int i = 0; i < mod; i++) {
+                    checkCancelled();
                     int fi = i;
                     List.of(EQ, POS).forEach(sgn -> {
                         newTransitions.set(states.get(arrayList(toStr(fi), arg), "2"), array(eps, POS, sgn),
@@ -1477,6 +1512,7 @@ public class Convert {
             if (arg.size() != 1) {
                 int mod = p[counters + 1 - arg.size()];
                 for (int i = 0; i < mod; i++) {
+                    checkCancelled();
                     int fi = i;
                     List.of(EQ, POS).forEach(sgn -> List.of(EQ, POS).forEach(sgn2 -> {
                         if (fi == 0 && sgn2.equals(EQ)) {
@@ -1529,6 +1565,7 @@ public class Convert {
                         break;
                     case "+1":
                         for (int i = 0; i < mod; i++) {
+                            checkCancelled();
                             newTransitions.set(states.get(arrayList(toStr(i), res), "3"), array(eps, POS, POS),
                                     states.get(arrayList(toStr(nextMod(i, mod)), res), "3"), array(i == mod - 1? DEC : ZERO, INC));
                         }
@@ -1540,6 +1577,7 @@ public class Convert {
                     case "-1":
                         List.of(EQ, POS).forEach(sgn -> {
                             for (int i = 0; i < mod; i++) {
+                                checkCancelled();
                                 newTransitions.set(states.get(arrayList(toStr(i), res), "3"), array(eps, POS, sgn),
                                         states.get(arrayList(toStr(nextMod(i, mod)), res), "3"), array(DEC, i == mod - 1? INC : ZERO));
                             }
@@ -0,0 +1,149 @@
+package machines.convert;
+
+import machines.Machine;
+import machines.MachineCache;
+import machines.MachineType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class ConvertPipeline {
+
+    public static final String SEPARATOR = "|";
+    public static final ConvertPipeline SHARED = new ConvertPipeline(32, 64L << 20);
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Machine> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, FutureTask<Machine>> pending = new HashMap<>();
+    private long weight = 0;
+
+    public ConvertPipeline(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public static List<String> codes(String pipeline) {
+        List<String> codes = Arrays.stream(pipeline.split(Pattern.quote(SEPARATOR)))
+                .map(String::strip)
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toList());
+        if (codes.isEmpty())
+            throw new IllegalArgumentException("Empty conversion pipeline");
+        return codes;
+    }
+
+    public static MachineType sourceType(String pipeline) {
+        String first = codes(pipeline).get(0);
+        try {
+            return MachineType.of(Convert.init(first));
+        } catch (AssertionError e) {
+            throw new IllegalArgumentException("Unknown conversion: " + first);
+        }
+    }
+
+
+
+    public Machine convert(Machine source, String pipeline) {
+        return convert(source, source.fingerprint(), pipeline);
+    }
+
+    public Machine convert(Machine source, String sourceKey, String pipeline) {
+        Machine m = source;
+        String key = sourceKey;
+        List<String> codes = codes(pipeline);
+        for (int i = 0; i < codes.size(); i++) {
+            key = key + SEPARATOR + codes.get(i);
+            m = step(m, key, codes.get(i), i + 1);
+        }
+        return m;
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        weight = 0;
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    // Concurrent misses on the same key wait for the first caller's conversion instead of repeating it; a conversion
+    // cancelled by its caller is never stored, and the callers that were waiting on it start their own.
+    private Machine step(Machine source, String key, String code, int step) {
+        while (true) {
+            FutureTask<Machine> task;
+            boolean owner = false;
+            synchronized (this) {
+                Machine cached = results.get(key);
+                if (cached != null)
+                    return cached;
+                task = pending.get(key);
+                if (task == null) {
+                    task = new FutureTask<>(() -> apply(source, code, step));
+                    pending.put(key, task);
+                    owner = true;
+                }
+            }
+            if (owner) {
+                task.run();
+                synchronized (this) {
+                    pending.remove(key);
+                    try {
+                        store(key, task.get());
+                    } catch (ExecutionException | InterruptedException ignored) {}
+                }
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException && !owner)
+                    continue;
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a conversion", e);
+            }
+        }
+    }
+
+    private void store(String key, Machine m) {
+        if (results.put(key, m) == null)
+            weight += weight(m);
+        Iterator<Machine> it = results.values().iterator();
+        while ((results.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+            Machine eldest = it.next();
+            if (eldest == m)
+                continue;
+            weight -= weight(eldest);
+            it.remove();
+        }
+    }
+
+    private static long weight(Machine m) {
+        return MachineCache.TRANSITION_WEIGHT * Math.max(1, m.getTransitions().size());
+    }
+
+    private static Machine apply(Machine m, String code, int step) {
+        try {
+            if (Convert.init(code).getClass() != m.getClass())
+                throw new IllegalArgumentException(String.format("Step %d: %s does not apply to %s", step, code, MachineType.of(m)));
+            return Convert.convert(m, code);
+        } catch (AssertionError e) {
+            throw new IllegalArgumentException(String.format("Step %d: unknown conversion %s", step, code));
+        }
+    }
+
+}
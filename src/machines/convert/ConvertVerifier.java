@@ -0,0 +1,199 @@
+package machines.convert;
+
+import machines.Machine;
+import machines.RunVerdict;
+import machines.compiled.CompiledMachine;
+import machines.compiled.MachineCompiler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConvertVerifier {
+
+    private final Machine source;
+    private final Machine target;
+    private final String[] alphabet;
+
+    private int maxLength = 6;
+    private long randomInputs = 10000;
+    private int maxRandomLength = 64;
+    private long sourceSteps = 100_000;
+    private long targetSteps = 10_000_000;
+    private long seed = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final AtomicLong tested = new AtomicLong();
+    private final AtomicLong undecided = new AtomicLong();
+
+    public ConvertVerifier(Machine source, Machine target) {
+        this.source = source;
+        this.target = target;
+
+        TreeSet<String> syms = new TreeSet<>(source.getSymbolsSet(0));
+        syms.removeIf(sym -> sym.length() != 1 || sym.equals(source.getBlank())
+                || sym.equals(source.getBound()) || sym.equals(source.getEps()));
+        alphabet = syms.toArray(new String[0]);
+    }
+
+    public static ConvertVerifier of(Machine m, String code) {
+        return new ConvertVerifier(m, Convert.convert(m, code));
+    }
+
+
+
+    public ConvertVerifier maxLength(int maxLength) {
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    public ConvertVerifier randomInputs(long randomInputs, int maxRandomLength) {
+        this.randomInputs = randomInputs;
+        this.maxRandomLength = maxRandomLength;
+        return this;
+    }
+
+    public ConvertVerifier steps(long sourceSteps, long targetSteps) {
+        this.sourceSteps = sourceSteps;
+        this.targetSteps = targetSteps;
+        return this;
+    }
+
+    public ConvertVerifier seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public ConvertVerifier threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+
+
+    public Mismatch verify() throws InterruptedException {
+        tested.set(0);
+        undecided.set(0);
+        long exhaustive = exhaustiveInputs();
+        long total = exhaustive + (alphabet.length == 0? 0 : randomInputs);
+
+        AtomicLong next = new AtomicLong();
+        AtomicLong firstMismatch = new AtomicLong(Long.MAX_VALUE);
+        ConcurrentHashMap<Long, Mismatch> mismatches = new ConcurrentHashMap<>();
+
+        CompiledMachine compiledSource = MachineCompiler.isAvailable()? MachineCompiler.compile(source) : null;
+        CompiledMachine compiledTarget = MachineCompiler.isAvailable()? MachineCompiler.compile(target) : null;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                Machine src = source.copy(), dst = target.copy();
+                for (long i = next.getAndIncrement(); i < total && i < firstMismatch.get(); i = next.getAndIncrement()) {
+                    String input = i < exhaustive? exhaustiveInput(i) : randomInput(i);
+                    RunVerdict expected = compiledSource != null? compiledSource.run(input, sourceSteps) : src.run(input, sourceSteps);
+                    RunVerdict actual = compiledTarget != null? compiledTarget.run(input, targetSteps) : dst.run(input, targetSteps);
+                    tested.incrementAndGet();
+                    if (expected == RunVerdict.UNDECIDED || actual == RunVerdict.UNDECIDED) {
+                        undecided.incrementAndGet();
+                    } else if (expected != actual) {
+                        mismatches.put(i, new Mismatch(input, expected, actual));
+                        firstMismatch.accumulateAndGet(i, Math::min);
+                    }
+                }
+            }));
+        }
+        pool.shutdown();
+        try {
+            for (Future<?> f : futures)
+                f.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Verification failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return mismatches.get(firstMismatch.get());
+    }
+
+    public long getTested() {
+        return tested.get();
+    }
+
+    public long getUndecided() {
+        return undecided.get();
+    }
+
+    public String[] getAlphabet() {
+        return alphabet.clone();
+    }
+
+
+
+    private long exhaustiveInputs() {
+        long count = 0, layer = 1;
+        for (int len = 0; len <= maxLength; len++) {
+            count += layer;
+            if (alphabet.length == 0)
+                break;
+            layer *= alphabet.length;
+        }
+        return count;
+    }
+
+    private String exhaustiveInput(long i) {
+        int len = 0;
+        long layer = 1;
+        while (i >= layer) {
+            i -= layer;
+            layer *= alphabet.length;
+            len++;
+        }
+        char[] chars = new char[len];
+        for (int k = len - 1; k >= 0; k--) {
+            chars[k] = alphabet[(int) (i % alphabet.length)].charAt(0);
+            i /= alphabet.length;
+        }
+        return new String(chars);
+    }
+
+    private String randomInput(long i) {
+        Random random = new Random(seed * 31 + i);
+        char[] chars = new char[maxLength + 1 + random.nextInt(Math.max(1, maxRandomLength - maxLength))];
+        for (int k = 0; k < chars.length; k++)
+            chars[k] = alphabet[random.nextInt(alphabet.length)].charAt(0);
+        return new String(chars);
+    }
+
+
+
+    public static class Mismatch {
+
+        private final String input;
+        private final RunVerdict expected;
+        private final RunVerdict actual;
+
+        Mismatch(String input, RunVerdict expected, RunVerdict actual) {
+            this.input = input;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public RunVerdict getExpected() {
+            return expected;
+        }
+
+        public RunVerdict getActual() {
+            return actual;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("'%s': source %s, converted %s", input, expected, actual);
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package machines.convert;
+
+import machines.DFA;
+import machines.NFA;
+import machines.TransitionArgument;
+import machines.table.DFATable;
+
+import java.util.*;
+
+public class DFAEquivalence {
+
+    private final DFATable a, b;
+    private final char[] alphabet;
+
+    private DFAEquivalence(DFA a, DFA b) {
+        this.a = new DFATable(a);
+        this.b = new DFATable(b);
+        TreeSet<Character> chars = new TreeSet<>();
+        for (DFA m : List.of(a, b)) {
+            for (TransitionArgument arg : m.getTransitions().args()) {
+                if (arg.getSymbol().length() == 1)
+                    chars.add(arg.getSymbol().charAt(0));
+            }
+        }
+        alphabet = new char[chars.size()];
+        int i = 0;
+        for (char c : chars)
+            alphabet[i++] = c;
+    }
+
+    public static boolean equivalent(DFA a, DFA b) {
+        return new DFAEquivalence(a, b).hopcroftKarp();
+    }
+
+    public static boolean equivalent(DFA a, NFA b) {
+        return equivalent(a, (DFA) Convert.convert(b, "nfa-dfa"));
+    }
+
+    public static String distinguish(DFA a, DFA b) {
+        DFAEquivalence eq = new DFAEquivalence(a, b);
+        return eq.hopcroftKarp()? null : eq.shortestWitness();
+    }
+
+    public static String distinguish(DFA a, NFA b) {
+        return distinguish(a, (DFA) Convert.convert(b, "nfa-dfa"));
+    }
+
+
+
+    private boolean hopcroftKarp() {
+        int offset = a.states();
+        int[] parent = new int[offset + b.states()];
+        for (int i = 0; i < parent.length; i++)
+            parent[i] = i;
+
+        ArrayDeque<int[]> pending = new ArrayDeque<>();
+        union(parent, a.getStart(), offset + b.getStart());
+        pending.add(new int[] {a.getStart(), b.getStart()});
+        while (!pending.isEmpty()) {
+            int[] pair = pending.removeFirst();
+            if (a.isAccepting(pair[0]) != b.isAccepting(pair[1]))
+                return false;
+            for (char c : alphabet) {
+                int p = a.step(pair[0], c), q = b.step(pair[1], c);
+                if (union(parent, p, offset + q))
+                    pending.addLast(new int[] {p, q});
+            }
+        }
+        return true;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static boolean union(int[] parent, int x, int y) {
+        int rx = find(parent, x), ry = find(parent, y);
+        if (rx == ry)
+            return false;
+        parent[rx] = ry;
+        return true;
+    }
+
+    private String shortestWitness() {
+        long width = b.states();
+        long start = a.getStart() * width + b.getStart();
+        HashMap<Long, Long> prev = new HashMap<>();
+        HashMap<Long, Character> via = new HashMap<>();
+        ArrayDeque<Long> q = new ArrayDeque<>(List.of(start));
+        prev.put(start, -1L);
+        while (!q.isEmpty()) {
+            long cur = q.removeFirst();
+            int p = (int) (cur / width), r = (int) (cur % width);
+            if (a.isAccepting(p) != b.isAccepting(r)) {
+                StringBuilder sb = new StringBuilder();
+                for (long at = cur; at != start; at = prev.get(at))
+                    sb.append(via.get(at));
+                return sb.reverse().toString();
+            }
+            for (char c : alphabet) {
+                long next = a.step(p, c) * width + b.step(r, c);
+                if (!prev.containsKey(next)) {
+                    prev.put(next, cur);
+                    via.put(next, c);
+                    q.addLast(next);
+                }
+            }
+        }
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,170 @@
+package machines.convert;
+
+import machines.DFA;
+import machines.TransitionArgument;
+import machines.Transitions;
+import machines.table.CharClasses;
+import machines.table.DFATable;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class DFAProduct {
+
+    private static final String DEAD = "-";
+
+    private final List<DFATable> tables;
+    private final char[] alphabet;
+    private final CharClasses classes;
+
+    private final HashMap<IntBuffer, Integer> ids = new HashMap<>();
+    private volatile State[] states = new State[16];
+    private int count = 0;
+
+    public DFAProduct(List<DFA> dfas) {
+        tables = new ArrayList<>();
+        TreeSet<Character> chars = new TreeSet<>();
+        for (DFA m : dfas) {
+            tables.add(new DFATable(m));
+            for (TransitionArgument arg : m.getTransitions().args()) {
+                if (arg.getSymbol().length() == 1)
+                    chars.add(arg.getSymbol().charAt(0));
+            }
+        }
+        alphabet = new char[chars.size()];
+        int i = 0;
+        for (char c : chars)
+            alphabet[i++] = c;
+
+        int[] none = new int[tables.size()];
+        classes = CharClasses.of(chars, c -> {
+            int[] cls = new int[tables.size()];
+            for (int k = 0; k < cls.length; k++)
+                cls[k] = tables.get(k).getClasses().of(c);
+            return IntBuffer.wrap(cls);
+        }, IntBuffer.wrap(none));
+
+        int[] start = new int[tables.size()];
+        for (int k = 0; k < start.length; k++)
+            start[k] = tables.get(k).getStart();
+        id(start);
+    }
+
+
+
+    public int machines() {
+        return tables.size();
+    }
+
+    // A row entry is set only after its target state is published, so step() reads explored rows without the lock.
+    public synchronized int exploredStates() {
+        return count;
+    }
+
+    public int getStart() {
+        return 0;
+    }
+
+    public BitSet getAcceptVector(int state) {
+        return (BitSet) states[state].accept.clone();
+    }
+
+    public int step(int state, char c) {
+        int cls = classes.of(c);
+        int next = states[state].row.get(cls);
+        return next != -1? next : explore(state, cls);
+    }
+
+    private synchronized int explore(int state, int cls) {
+        State from = states[state];
+        int next = from.row.get(cls);
+        if (next != -1)
+            return next;
+        int[] to = new int[from.tuple.length];
+        char rep = classes.representative(cls);
+        for (int k = 0; k < to.length; k++)
+            to[k] = tables.get(k).step(from.tuple[k], rep);
+        next = id(to);
+        from.row.set(cls, next);
+        return next;
+    }
+
+    public BitSet classify(CharSequence input) {
+        int state = getStart();
+        for (int i = 0; i < input.length(); i++)
+            state = step(state, input.charAt(i));
+        return getAcceptVector(state);
+    }
+
+    private int id(int[] tuple) {
+        Integer id = ids.get(IntBuffer.wrap(tuple));
+        if (id != null)
+            return id;
+        id = count;
+        ids.put(IntBuffer.wrap(tuple), id);
+        BitSet accept = new BitSet(tuple.length);
+        for (int k = 0; k < tuple.length; k++) {
+            if (tables.get(k).isAccepting(tuple[k]))
+                accept.set(k);
+        }
+        State[] published = count < states.length? states : Arrays.copyOf(states, 2 * count);
+        published[count++] = new State(tuple, accept, classes.count());
+        states = published;
+        return id;
+    }
+
+
+
+    public synchronized DFA toDFA(BitSet acceptIfAny) {
+        for (int s = 0; s < count; s++) {
+            for (char c : alphabet)
+                step(s, c);
+        }
+
+        HashSet<String> taken = new HashSet<>();
+        String[] names = new String[count];
+        for (int s = 0; s < names.length; s++) {
+            StringJoiner sj = new StringJoiner("|");
+            for (int k = 0; k < tables.size(); k++) {
+                String st = tables.get(k).getState(states[s].tuple[k]);
+                sj.add(st == null? DEAD : st);
+            }
+            String name = sj.toString();
+            while (taken.contains(name))
+                name += "'";
+            taken.add(name);
+            names[s] = name;
+        }
+
+        Transitions transitions = new Transitions();
+        Set<String> accept = new TreeSet<>();
+        for (int s = 0; s < names.length; s++) {
+            if (states[s].accept.intersects(acceptIfAny))
+                accept.add(names[s]);
+            for (char c : alphabet)
+                transitions.set(names[s], Character.toString(c), names[step(s, c)]);
+        }
+        return DFA.with(names[getStart()], accept, transitions);
+    }
+
+
+
+
+    private static class State {
+
+        private final int[] tuple;
+        private final BitSet accept;
+        private final AtomicIntegerArray row;
+
+        private State(int[] tuple, BitSet accept, int classes) {
+            this.tuple = tuple;
+            this.accept = accept;
+            this.row = new AtomicIntegerArray(classes);
+            for (int i = 0; i < classes; i++)
+                row.set(i, -1);
+        }
+
+    }
+
+}
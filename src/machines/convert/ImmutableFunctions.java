@@ -3,6 +3,7 @@ package machines.convert;
 import machines.TransitionArgument;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -17,6 +18,7 @@ abstract public class ImmutableFunctions {
         Collection<ArrayList<String>> subRes = multiply(subArgs);
         Collection<ArrayList<String>> res = new ArrayList<>();
         for (String s : args[0]) {
+            checkCancelled();
             for (ArrayList<String> rest : subRes) {
                 ArrayList<String> newElem = new ArrayList<>();
                 newElem.add(s);
@@ -63,20 +65,6 @@ abstract public class ImmutableFunctions {
         }
     }
 
-    static Collection<ArrayList<String>> subsets(Collection<String> col) {
-        ArrayList<String> ls = toList(col);
-        ArrayList<ArrayList<String>> subsets = new ArrayList<>();
-        for (int mask = 0; mask < (1 << ls.size()); mask++) {
-            TreeSet<String> subset = new TreeSet<>();
-            for (int bit = 0; bit < ls.size(); bit++) {
-                if ((mask >> bit) % 2 == 1)
-                    subset.add(ls.get(bit));
-            }
-            subsets.add(toList(subset));
-        }
-        return subsets;
-    }
-
     static Collection<ArrayList<String>> tails(Collection<ArrayList<String>> lists) {
         HashSet<ArrayList<String>> tails = new HashSet<>();
         for (ArrayList<String> ls : lists) {
@@ -170,6 +158,11 @@ abstract public class ImmutableFunctions {
         return newLists;
     }
 
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Conversion cancelled");
+    }
+
     static List<Integer> intRange(int n) {
         return IntStream.range(0, n).boxed().collect(Collectors.toList());
     }
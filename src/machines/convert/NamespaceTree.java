@@ -362,6 +362,7 @@ class NamespaceTree {
 
     @SafeVarargs
     final void forEachSelected(Consumer<String> action, Consumer<String>... moreActions) {
+        ImmutableFunctions.checkCancelled();
         Collection<NamespaceTree> selected = getSelected();
         for (NamespaceTree sel : selected)
             action.accept(sel.value);
@@ -397,6 +398,7 @@ class NamespaceTree {
     @SafeVarargs
     final void forAllStringKeys(Consumer<String> action, Consumer<String>... moreActions) {
         getRoot().assertNoSelected();
+        ImmutableFunctions.checkCancelled();
         if (childType == ChildType.STRING) {
             for (String key : stringChildren.keySet())
                 action.accept(key);
@@ -411,6 +413,7 @@ class NamespaceTree {
     @SafeVarargs
     final void forAllIntKeys(Consumer<Integer> action, Consumer<Integer>... moreActions) {
         getRoot().assertNoSelected();
+        ImmutableFunctions.checkCancelled();
         if (childType == ChildType.INT) {
             for (int i = 0; i < intChildren.length; i++)
                 action.accept(i);
@@ -425,6 +428,7 @@ class NamespaceTree {
     @SafeVarargs
     final void forAllListKeys(Consumer<ArrayList<String>> action, Consumer<ArrayList<String>>... moreActions) {
         getRoot().assertNoSelected();
+        ImmutableFunctions.checkCancelled();
         if (childType == ChildType.LIST) {
             for (ArrayList<String> key : listChildren.keySet())
                 action.accept(key);
@@ -0,0 +1,120 @@
+package machines.convert;
+
+import java.util.*;
+
+class SubsetNames {
+
+    private static final String EMPTY = "none";
+
+    private final List<String> states;
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    SubsetNames(List<String> states) {
+        this.states = states;
+        for (int i = 0; i < states.size(); i++)
+            ids.put(states.get(i), i);
+    }
+
+    HashMap<BitSet, String> name(Collection<BitSet> subsets) {
+        HashMap<String, Integer> reach = new HashMap<>();
+        for (BitSet set : subsets) {
+            String base = base(set), root = root(base);
+            reach.merge(root, base.length() - root.length(), Math::max);
+        }
+        HashMap<BitSet, String> names = new HashMap<>();
+        for (Map.Entry<String, Integer> family : reach.entrySet())
+            names.putAll(family(family.getKey(), family.getValue()));
+        names.keySet().retainAll(new HashSet<>(subsets));
+        return names;
+    }
+
+    String base(BitSet set) {
+        if (set.isEmpty())
+            return EMPTY;
+        ArrayList<String> members = new ArrayList<>();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1))
+            members.add(states.get(i));
+        Collections.sort(members);
+        return String.join("/", members);
+    }
+
+    private static String root(String name) {
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == '\'')
+            end--;
+        return name.substring(0, end);
+    }
+
+
+
+    private HashMap<BitSet, String> family(String root, int reach) {
+        HashSet<String> taken = new HashSet<>();
+        ArrayList<BitSet> claimants = new ArrayList<>();
+        int found = 0, last = 0;
+        String name = root;
+        for (int j = 0; j <= Math.max(reach, last + found); j++, name += "'") {
+            if (ids.containsKey(name)) {
+                taken.add(name);
+                found++;
+                last = j;
+            }
+            List<BitSet> parsed = parse(name);
+            if (!parsed.isEmpty()) {
+                claimants.addAll(parsed);
+                found += parsed.size();
+                last = j;
+            }
+        }
+
+        HashMap<BitSet, long[]> words = new HashMap<>();
+        for (BitSet set : claimants)
+            words.put(set, set.toLongArray());
+        claimants.sort((x, y) -> compare(words.get(x), words.get(y)));
+
+        HashMap<BitSet, String> names = new HashMap<>();
+        for (BitSet set : claimants) {
+            String n = base(set);
+            while (taken.contains(n))
+                n += "'";
+            taken.add(n);
+            names.put(set, n);
+        }
+        return names;
+    }
+
+    private List<BitSet> parse(String name) {
+        ArrayList<BitSet> res = new ArrayList<>();
+        if (name.equals(EMPTY))
+            res.add(new BitSet());
+        parse(name, 0, null, new BitSet(), res);
+        return res;
+    }
+
+    private void parse(String name, int pos, String prev, BitSet cur, List<BitSet> res) {
+        for (int end = pos + 1; end <= name.length(); end++) {
+            if (end < name.length() && name.charAt(end) != '/')
+                continue;
+            String piece = name.substring(pos, end);
+            Integer id = ids.get(piece);
+            if (id == null || (prev != null && piece.compareTo(prev) <= 0))
+                continue;
+            cur.set(id);
+            if (end == name.length())
+                res.add((BitSet) cur.clone());
+            else
+                parse(name, end + 1, piece, cur, res);
+            cur.clear(id);
+        }
+    }
+
+    private static int compare(long[] x, long[] y) {
+        if (x.length != y.length)
+            return Integer.compare(x.length, y.length);
+        for (int i = x.length - 1; i >= 0; i--) {
+            if (x[i] != y[i])
+                return Long.compareUnsigned(x[i], y[i]);
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,273 @@
+package machines.exec;
+
+import machines.MachineSnapshot;
+import machines.MachineType;
+import machines.RunVerdict;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BatchCoordinator {
+
+    private static final long POLL_MILLIS = 50;
+    private static final RunVerdict[] VERDICTS = RunVerdict.values();
+
+    private final MachineType type;
+    private final String description;
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int shardSize = 64;
+    private long maxSteps = 1_000_000;
+    private int maxAttempts = 3;
+    private int maxRestarts = 16;
+    private long shardTimeoutMillis = 60_000;
+    private List<String> jvmOptions = List.of();
+
+    private final LinkedBlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong remaining = new AtomicLong();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private volatile IOException failure;
+    private ScheduledExecutorService watchdog;
+
+    public BatchCoordinator(MachineType type, String description) throws ParseException {
+        this.type = type;
+        this.description = description;
+        type.create().parse(description).throwFirstError();
+    }
+
+    public static void main(String[] args) throws IOException, ParseException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: <type> <description> <inputs> [workers]");
+            return;
+        }
+        BatchCoordinator coordinator = new BatchCoordinator(MachineType.valueOf(args[0].toUpperCase()),
+                Files.readString(Path.of(args[1])));
+        if (args.length > 3)
+            coordinator.workers(Integer.parseInt(args[3]));
+        PrintStream out = System.out;
+        coordinator.run(Files.readAllLines(Path.of(args[2])), new Sink() {
+            @Override
+            public void result(long index, String input, RunVerdict verdict) {
+                out.println(index + "\t" + verdict);
+            }
+
+            @Override
+            public void failed(long index, String input, String reason) {
+                out.println(index + "\tFAILED\t" + reason);
+            }
+        });
+        out.flush();
+    }
+
+
+
+    public BatchCoordinator workers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    public BatchCoordinator shardSize(int shardSize) {
+        this.shardSize = shardSize;
+        return this;
+    }
+
+    public BatchCoordinator maxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    public BatchCoordinator maxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public BatchCoordinator maxRestarts(int maxRestarts) {
+        this.maxRestarts = maxRestarts;
+        return this;
+    }
+
+    public BatchCoordinator shardTimeoutMillis(long shardTimeoutMillis) {
+        this.shardTimeoutMillis = shardTimeoutMillis;
+        return this;
+    }
+
+    public BatchCoordinator jvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions;
+        return this;
+    }
+
+
+
+    public void run(List<String> inputs, Sink sink) throws IOException, InterruptedException {
+        queue.clear();
+        restarts.set(0);
+        failure = null;
+        for (int i = 0; i < inputs.size(); i++)
+            queue.add(new Task(i, inputs.get(i)));
+        remaining.set(inputs.size());
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "batch-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+
+        ArrayList<Thread> threads = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(workers, Math.max(1, inputs.size())); i++) {
+                Thread t = new Thread(() -> serve(sink), "batch-worker-" + (i + 1));
+                t.start();
+                threads.add(t);
+            }
+            for (Thread t : threads)
+                t.join();
+        } finally {
+            watchdog.shutdownNow();
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private void serve(Sink sink) {
+        Process process = null;
+        DataOutputStream out = null;
+        DataInputStream in = null;
+        ArrayList<Task> shard = new ArrayList<>();
+        try {
+            while (remaining.get() > 0 && failure == null) {
+                if (shard.isEmpty()) {
+                    Task first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null)
+                        continue;
+                    shard.add(first);
+                    queue.drainTo(shard, shardSize - 1);
+                }
+                ScheduledFuture<?> timeout = null;
+                try {
+                    if (process == null) {
+                        process = start();
+                        out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+                        in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+                        handshake(in, out);
+                    }
+                    // A worker stuck on a shard is killed, which surfaces below as a broken stream.
+                    timeout = watchdog.schedule(process::destroyForcibly, shardTimeoutMillis, TimeUnit.MILLISECONDS);
+                    for (Task task : shard) {
+                        out.writeLong(task.index);
+                        MachineSnapshot.writeString(out, task.input);
+                    }
+                    out.flush();
+                    while (!shard.isEmpty()) {
+                        long index = in.readLong();
+                        int verdict = in.readByte();
+                        Task task = shard.get(0);
+                        if (task.index != index)
+                            throw new IOException("Worker answered out of order");
+                        if (verdict < 0 || verdict >= VERDICTS.length)
+                            throw new IOException("Worker sent an invalid verdict: " + verdict);
+                        synchronized (sink) {
+                            sink.result(task.index, task.input, VERDICTS[verdict]);
+                        }
+                        shard.remove(0);
+                        remaining.decrementAndGet();
+                    }
+                    timeout.cancel(false);
+                } catch (IOException | RuntimeException e) {
+                    boolean timedOut = timeout != null && !timeout.cancel(false);
+                    String reason = timedOut? "Shard timed out after " + shardTimeoutMillis + " ms" : e.toString();
+                    if (process != null)
+                        process.destroyForcibly();
+                    process = null;
+                    if (restarts.incrementAndGet() > maxRestarts) {
+                        failure = new IOException("Too many worker restarts", e);
+                        return;
+                    }
+                    Task suspect = shard.remove(0);
+                    if (++suspect.attempts >= maxAttempts) {
+                        synchronized (sink) {
+                            sink.failed(suspect.index, suspect.input, reason);
+                        }
+                        remaining.decrementAndGet();
+                    } else {
+                        queue.add(suspect);
+                    }
+                    queue.addAll(shard);
+                    shard.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure = new IOException("Batch sink failed", e);
+        } finally {
+            if (process != null) {
+                try {
+                    out.writeLong(BatchWorker.STOP);
+                    out.flush();
+                    process.waitFor(1, TimeUnit.SECONDS);
+                } catch (IOException | InterruptedException ignored) {}
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private Process start() throws IOException {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null) {
+            command.add("--module-path");
+            command.add(modulePath);
+            command.add("--add-modules");
+            command.add("ALL-MODULE-PATH");
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BatchWorker.class.getName());
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private void handshake(DataInputStream in, DataOutputStream out) throws IOException {
+        out.writeUTF(type.name());
+        MachineSnapshot.writeString(out, description);
+        out.writeLong(maxSteps);
+        out.flush();
+        if (!in.readBoolean())
+            throw new IOException("Worker rejected the machine: " + MachineSnapshot.readString(in));
+    }
+
+
+
+    public interface Sink {
+
+        void result(long index, String input, RunVerdict verdict);
+
+        void failed(long index, String input, String reason);
+
+    }
+
+    private static class Task {
+
+        final long index;
+        final String input;
+        int attempts = 0;
+
+        Task(long index, String input) {
+            this.index = index;
+            this.input = input;
+        }
+
+    }
+
+}
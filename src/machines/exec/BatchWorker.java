@@ -0,0 +1,52 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineSnapshot;
+import machines.MachineType;
+import machines.RunVerdict;
+import machines.compiled.CompiledMachine;
+import machines.compiled.MachineCompiler;
+
+import java.io.*;
+import java.text.ParseException;
+
+public class BatchWorker {
+
+    static final long STOP = -1;
+
+    public static void main(String[] args) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+
+        MachineType type = MachineType.valueOf(in.readUTF());
+        String description = MachineSnapshot.readString(in);
+        long maxSteps = in.readLong();
+        Machine machine = type.create();
+        try {
+            machine.parse(description).throwFirstError();
+        } catch (ParseException e) {
+            out.writeBoolean(false);
+            MachineSnapshot.writeString(out, e.getMessage());
+            out.flush();
+            return;
+        }
+        out.writeBoolean(true);
+        out.flush();
+        CompiledMachine compiled = MachineCompiler.isAvailable()? MachineCompiler.compile(machine) : null;
+
+        while (true) {
+            long id = in.readLong();
+            if (id == STOP)
+                break;
+            String input = MachineSnapshot.readString(in);
+            RunVerdict verdict = compiled != null? compiled.run(input, maxSteps) : machine.run(input, maxSteps);
+            out.writeLong(id);
+            out.writeByte(verdict.ordinal());
+            // Each verdict is flushed as soon as it is known, so a crash or a timeout only loses the input in flight
+            // and the coordinator blames exactly that input.
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+public class Checkpoint {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final long sequence;
+    private final long steps;
+    private final String fingerprint;
+    private final String input;
+    private final MachineSnapshot snapshot;
+
+    private Checkpoint(long sequence, long steps, String fingerprint, String input, MachineSnapshot snapshot) {
+        this.sequence = sequence;
+        this.steps = steps;
+        this.fingerprint = fingerprint;
+        this.input = input;
+        this.snapshot = snapshot;
+    }
+
+    public static Checkpoint latest(Path path) throws IOException {
+        Checkpoint latest = null;
+        for (String suffix : CheckpointWriter.SLOT_SUFFIXES) {
+            Checkpoint cp = read(Path.of(path + suffix));
+            if (cp != null && (latest == null || cp.sequence > latest.sequence))
+                latest = cp;
+        }
+        if (latest == null)
+            throw new IOException("No valid checkpoint at " + path);
+        return latest;
+    }
+
+    private static Checkpoint read(Path slot) throws IOException {
+        long size;
+        try {
+            size = Files.size(slot);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (size < Long.BYTES || !checksum(slot, size - Long.BYTES))
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(slot)))) {
+            if (in.readInt() != CheckpointWriter.MAGIC || in.readInt() != CheckpointWriter.VERSION)
+                return null;
+            long sequence = in.readLong();
+            long steps = in.readLong();
+            String fingerprint = MachineSnapshot.readString(in);
+            String input = MachineSnapshot.readString(in);
+            return new Checkpoint(sequence, steps, fingerprint, input, MachineSnapshot.read(in));
+        }
+    }
+
+    private static boolean checksum(Path slot, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream in = Files.newInputStream(slot)) {
+            for (long left = length; left > 0; ) {
+                int n = in.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (n < 0)
+                    return false;
+                crc.update(chunk, 0, n);
+                left -= n;
+            }
+            return crc.getValue() == new DataInputStream(in).readLong();
+        }
+    }
+
+
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public MachineSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void restore(Machine machine) throws IOException {
+        if (!fingerprint.equals(machine.fingerprint()))
+            throw new IOException("Checkpoint was written for another machine");
+        machine.init(input);
+        machine.restore(snapshot);
+    }
+
+}
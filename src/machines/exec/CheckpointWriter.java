@@ -0,0 +1,149 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class CheckpointWriter implements Closeable {
+
+    static final int MAGIC = 0x544d4350;
+    static final int VERSION = 3;
+    static final String[] SLOT_SUFFIXES = {".0", ".1"};
+
+    public static final long DEFAULT_PERIOD_MILLIS = 60_000;
+
+    private static final long CHECK_MASK = (1 << 12) - 1;
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path path;
+    private final Machine machine;
+    private final String fingerprint;
+    private final String input;
+    private final long periodMillis;
+
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private volatile IOException failure = null;
+    private long sequence;
+    private long lastCheckpoint = System.currentTimeMillis();
+
+    public CheckpointWriter(Path path, Machine machine, String input) {
+        this(path, machine, input, DEFAULT_PERIOD_MILLIS, 0);
+        WRITER.execute(() -> {
+            try {
+                for (String suffix : SLOT_SUFFIXES)
+                    Files.deleteIfExists(Path.of(path + suffix));
+            } catch (IOException e) {
+                failure = e;
+            }
+        });
+    }
+
+    public CheckpointWriter(Path path, Machine machine, String input, long periodMillis, long sequence) {
+        this.path = path;
+        this.machine = machine;
+        this.fingerprint = machine.fingerprint();
+        this.input = input;
+        this.periodMillis = periodMillis;
+        this.sequence = sequence;
+    }
+
+    public static CheckpointWriter resume(Path path, Machine machine, Checkpoint from) {
+        return new CheckpointWriter(path, machine, from.getInput(), DEFAULT_PERIOD_MILLIS, from.getSequence() + 1);
+    }
+
+
+
+    public void tick(long steps) throws IOException {
+        if ((steps & CHECK_MASK) != 0)
+            return;
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpoint >= periodMillis && checkpoint(steps))
+            lastCheckpoint = now;
+    }
+
+    public boolean checkpoint(long steps) throws IOException {
+        if (failure != null)
+            throw failure;
+        if (!writing.compareAndSet(false, true))
+            return false;
+
+        // Dense and sparse tapes share pages copy-on-write and run-length tapes copy their runs, so the run thread
+        // pays for page directories or runs rather than cells; encoding and checksumming happen on the writer thread.
+        MachineSnapshot snapshot = machine.snapshot();
+        long seq = sequence++;
+        Path slot = Path.of(path + SLOT_SUFFIXES[(int) (seq & 1)]);
+        WRITER.execute(() -> {
+            try {
+                write(slot, seq, steps, snapshot);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                writing.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void write(Path slot, long seq, long steps, MachineSnapshot snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(slot, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedOutputStream file = new BufferedOutputStream(Channels.newOutputStream(channel));
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seq);
+            out.writeLong(steps);
+            MachineSnapshot.writeString(out, fingerprint);
+            MachineSnapshot.writeString(out, input);
+            snapshot.write(out);
+            out.flush();
+            DataOutputStream tail = new DataOutputStream(file);
+            tail.writeLong(crc.getValue());
+            tail.flush();
+            channel.force(true);
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public CompletableFuture<Void> closeAsync() {
+        return CompletableFuture.runAsync(() -> {
+            if (failure != null)
+                throw new UncheckedIOException(failure);
+        }, WRITER);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeAsync().join();
+        } catch (CompletionException e) {
+            throw ((UncheckedIOException) e.getCause()).getCause();
+        }
+    }
+
+}
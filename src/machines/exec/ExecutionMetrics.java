@@ -0,0 +1,172 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineIndex;
+import machines.TransitionArgument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class ExecutionMetrics {
+
+    private final Machine machine;
+    private final MachineIndex index;
+
+    private final long[] stateVisits;
+    private final long[] transitionHits;
+    private final long[] tapeHighWater;
+    private long steps;
+    private long runNanos;
+    private long runStart = -1;
+
+    public ExecutionMetrics(Machine machine) {
+        this(machine, new MachineIndex(machine));
+    }
+
+    public ExecutionMetrics(Machine machine, MachineIndex index) {
+        this.machine = machine;
+        this.index = index;
+        stateVisits = new long[index.states()];
+        transitionHits = new long[index.transitions()];
+        tapeHighWater = new long[machine.tapes()];
+    }
+
+
+
+    public void reset() {
+        Arrays.fill(stateVisits, 0);
+        Arrays.fill(transitionHits, 0);
+        Arrays.fill(tapeHighWater, 0);
+        steps = 0;
+        runNanos = 0;
+        runStart = -1;
+        recordState();
+        recordTapes();
+    }
+
+    public void makeStep() {
+        machine.makeStep();
+        steps++;
+        int tr = index.transitionId(machine.getLastTransition());
+        if (tr != -1)
+            transitionHits[tr]++;
+        recordState();
+        recordTapes();
+    }
+
+    public void startTimer() {
+        if (runStart == -1)
+            runStart = System.nanoTime();
+    }
+
+    public void stopTimer() {
+        if (runStart != -1) {
+            runNanos += System.nanoTime() - runStart;
+            runStart = -1;
+        }
+    }
+
+    private void recordState() {
+        int st = index.stateId(machine.getCurrentState());
+        if (st != -1)
+            stateVisits[st]++;
+    }
+
+    private void recordTapes() {
+        for (int i = 0; i < tapeHighWater.length; i++)
+            tapeHighWater[i] = Math.max(tapeHighWater[i], machine.getTapeSize(i));
+    }
+
+
+
+    public MachineIndex getIndex() {
+        return index;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getStateVisits(int state) {
+        return stateVisits[state];
+    }
+
+    public long getTransitionHits(int transition) {
+        return transitionHits[transition];
+    }
+
+    public long getTapeHighWater(int tape) {
+        return tapeHighWater[tape];
+    }
+
+    public double getStepsPerSecond() {
+        long nanos = runStart == -1? runNanos : runNanos + System.nanoTime() - runStart;
+        return nanos == 0? 0 : steps * 1e9 / nanos;
+    }
+
+
+
+    public void export(Path path) throws IOException {
+        Files.writeString(path, path.toString().endsWith(".json")? toJson() : toCsv());
+    }
+
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("kind,id,name,count\n");
+        for (int i = 0; i < stateVisits.length; i++)
+            sb.append("state,").append(i).append(',').append(csv(index.getState(i))).append(',').append(stateVisits[i]).append('\n');
+        for (int i = 0; i < transitionHits.length; i++)
+            sb.append("transition,").append(i).append(',').append(csv(transitionName(i))).append(',').append(transitionHits[i]).append('\n');
+        for (int i = 0; i < tapeHighWater.length; i++)
+            sb.append("tape,").append(i).append(",high-water,").append(tapeHighWater[i]).append('\n');
+        sb.append("total,0,steps,").append(steps).append('\n');
+        sb.append("total,1,steps-per-second,").append(String.format(Locale.ROOT, "%.1f", getStepsPerSecond())).append('\n');
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"steps\": ").append(steps).append(",\n");
+        sb.append("  \"stepsPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", getStepsPerSecond())).append(",\n");
+        sb.append("  \"tapeHighWater\": ").append(Arrays.toString(tapeHighWater)).append(",\n");
+        sb.append("  \"states\": [");
+        for (int i = 0; i < stateVisits.length; i++) {
+            sb.append(i == 0? "\n" : ",\n").append("    {\"id\": ").append(i).append(", \"name\": ")
+                    .append(json(index.getState(i))).append(", \"visits\": ").append(stateVisits[i]).append('}');
+        }
+        sb.append("\n  ],\n  \"transitions\": [");
+        for (int i = 0; i < transitionHits.length; i++) {
+            sb.append(i == 0? "\n" : ",\n").append("    {\"id\": ").append(i).append(", \"name\": ")
+                    .append(json(transitionName(i))).append(", \"hits\": ").append(transitionHits[i]).append('}');
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    public String transitionName(int transition) {
+        TransitionArgument arg = index.getTransition(transition);
+        return arg.getState() + " " + String.join(" ", arg.getSymbols());
+    }
+
+    private static String csv(String s) {
+        if (s.indexOf(',') == -1 && s.indexOf('"') == -1)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+}
@@ -0,0 +1,302 @@
+package machines.exec;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import machines.Machine;
+import machines.MachineCache;
+import machines.MachineType;
+import machines.RunVerdict;
+import machines.compiled.CompiledMachine;
+import machines.compiled.CompiledRun;
+import machines.compiled.MachineCompiler;
+import machines.convert.ConvertPipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ExecutionServer {
+
+    public static final int DEFAULT_PORT = 8321;
+
+    private static final int MAX_CACHED_MACHINES = 256;
+    private static final long MAX_CACHED_WEIGHT = 256L << 20;
+    private static final long DEADLINE_CHECK_MASK = (1 << 12) - 1;
+    private static final int MAX_BODY = 16 << 20;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final HttpServer server;
+    private final ExecutorService executor = newExecutor();
+    private final ExecutorService work = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "execution-server-work");
+        t.setDaemon(true);
+        return t;
+    });
+    private final MachineCache machines = new MachineCache(MAX_CACHED_MACHINES, MAX_CACHED_WEIGHT);
+    private final ConvertPipeline conversions = new ConvertPipeline(MAX_CACHED_MACHINES, MAX_CACHED_WEIGHT);
+
+    private long maxSteps = 100_000_000;
+    private long maxMillis = 60_000;
+
+    public ExecutionServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/parse", exchange -> handle(exchange, this::parse));
+        server.createContext("/run", exchange -> handle(exchange, this::run));
+        server.createContext("/convert", exchange -> handle(exchange, this::convert));
+        server.createContext("/batch-run", exchange -> handle(exchange, this::batchRun));
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetSocketAddress address = args.length > 1? new InetSocketAddress(args[1], port)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        ExecutionServer server = new ExecutionServer(address);
+        server.start();
+        System.err.println("Listening on " + server.server.getAddress());
+    }
+
+
+
+    public ExecutionServer maxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    public ExecutionServer maxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+        return this;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        work.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+
+
+    private String parse(Map<String, String> query, String body) throws RequestException {
+        MachineType type;
+        try {
+            type = MachineType.valueOf(required(query, "type").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Unknown machine type: " + query.get("type"));
+        }
+        Budget budget = new Budget(query);
+        return withDeadline(budget, () -> register(type, body)).getKey() + "\n";
+    }
+
+    private String run(Map<String, String> query, String body) throws RequestException {
+        MachineCache.Entry entry = lookup(query);
+        CompiledMachine compiled = compiled(entry);
+        Budget budget = new Budget(query);
+        if (compiled != null)
+            return result(compiled, body, budget) + "\n";
+        Machine m = entry.borrow();
+        try {
+            return result(m, body, budget) + "\n";
+        } finally {
+            entry.release(m);
+        }
+    }
+
+    private String batchRun(Map<String, String> query, String body) throws RequestException {
+        MachineCache.Entry entry = lookup(query);
+        CompiledMachine compiled = compiled(entry);
+        Budget budget = new Budget(query);
+        if (compiled != null) {
+            StringBuilder sb = new StringBuilder();
+            body.lines().forEach(input -> sb.append(result(compiled, input, budget)).append('\n'));
+            return sb.toString();
+        }
+        Machine m = entry.borrow();
+        try {
+            StringBuilder sb = new StringBuilder();
+            body.lines().forEach(input -> sb.append(result(m, input, budget)).append('\n'));
+            return sb.toString();
+        } finally {
+            entry.release(m);
+        }
+    }
+
+    private String convert(Map<String, String> query, String body) throws RequestException {
+        MachineCache.Entry entry = lookup(query);
+        String pipeline = required(query, "code");
+        Budget budget = new Budget(query);
+        Machine converted = withDeadline(budget, () -> {
+            try {
+                return conversions.convert(entry.getMachine(), entry.getKey(), pipeline);
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, e.getMessage());
+            }
+        });
+        MachineCache.Entry result = machines.put(MachineType.of(converted), converted);
+        return result.getKey() + "\n" + result.getDescription();
+    }
+
+    private String result(Machine m, String input, Budget budget) {
+        m.init(input);
+        long steps = 0;
+        while (steps < budget.steps && !m.isInTerminalState()) {
+            m.makeStep();
+            steps++;
+            if ((steps & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > budget.deadline)
+                break;
+        }
+        RunVerdict verdict = m.isInAcceptState()? RunVerdict.ACCEPT
+                : m.isInTerminalState()? RunVerdict.REJECT : RunVerdict.UNDECIDED;
+        return verdict + " " + steps + " " + m.getCurrentState();
+    }
+
+    private String result(CompiledMachine m, String input, Budget budget) {
+        CompiledRun run = m.execute(input, budget.steps, budget.deadline);
+        return run.getVerdict() + " " + run.getSteps() + " " + run.getState();
+    }
+
+    private static CompiledMachine compiled(MachineCache.Entry entry) {
+        if (!MachineCompiler.isAvailable())
+            return null;
+        return entry.derive(CompiledMachine.class, MachineCompiler::compile);
+    }
+
+
+
+    private <T> T withDeadline(Budget budget, Callable<T> task) throws RequestException {
+        Future<T> future = work.submit(task);
+        try {
+            return future.get(Math.max(0, budget.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RequestException(408, "Time budget exceeded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestException(503, "Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RequestException)
+                throw (RequestException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    private MachineCache.Entry register(MachineType type, String description) throws RequestException {
+        MachineCache.Entry entry = machines.get(type, description);
+        if (entry.getVerdict().hasErrors())
+            throw new RequestException(422, entry.getVerdict().getErrors().get(0).getMessage());
+        return entry;
+    }
+
+    private MachineCache.Entry lookup(Map<String, String> query) throws RequestException {
+        String id = required(query, "machine");
+        MachineCache.Entry entry = machines.find(id);
+        if (entry == null || entry.getVerdict().hasErrors())
+            throw new RequestException(404, "Unknown machine: " + id);
+        return entry;
+    }
+
+    private static String required(Map<String, String> query, String name) throws RequestException {
+        String value = query.get(name);
+        if (value == null)
+            throw new RequestException(400, "Missing parameter: " + name);
+        return value;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status = 200;
+        String response;
+        try {
+            Map<String, String> query = new HashMap<>();
+            String raw = exchange.getRequestURI().getRawQuery();
+            if (raw != null) {
+                for (String pair : raw.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0)
+                        query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                                URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+            byte[] content = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+            if (content.length > MAX_BODY)
+                throw new RequestException(413, "Request body exceeds " + MAX_BODY + " bytes");
+            response = endpoint.handle(query, new String(content, StandardCharsets.UTF_8));
+        } catch (RequestException e) {
+            status = e.status;
+            response = e.getMessage() + "\n";
+        } catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+            status = 500;
+            response = e + "\n";
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(4 * THREADS);
+        }
+    }
+
+
+
+    private interface Endpoint {
+
+        String handle(Map<String, String> query, String body) throws RequestException;
+
+    }
+
+    private static class RequestException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+    }
+
+    private class Budget {
+
+        final long steps;
+        final long deadline;
+
+        Budget(Map<String, String> query) throws RequestException {
+            try {
+                steps = Math.min(maxSteps, Long.parseLong(query.getOrDefault("steps", String.valueOf(maxSteps))));
+                long millis = Math.min(maxMillis, Long.parseLong(query.getOrDefault("millis", String.valueOf(maxMillis))));
+                deadline = System.nanoTime() + millis * 1_000_000;
+            } catch (NumberFormatException e) {
+                throw new RequestException(400, "Invalid budget: " + e.getMessage());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,395 @@
+package machines.exec;
+
+import machines.NTM;
+import machines.RunVerdict;
+import machines.TransitionArgument;
+import machines.TransitionResult;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+public class NTMExplorer {
+
+    public static final long DEFAULT_MAX_CONFIGURATIONS = 1 << 20;
+
+    private static final int[] NO_MOVES = new int[0];
+    private static final int FORK_DEPTH = 8;
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final ArrayList<String> states = new ArrayList<>();
+    private final HashMap<String, Integer> stateIds = new HashMap<>();
+    private final ArrayList<String> symbols = new ArrayList<>();
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+    private final int start, accept, reject, blank;
+    private final int[][][] moves;
+
+    private Strategy strategy = Strategy.BFS;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxConfigurations = DEFAULT_MAX_CONFIGURATIONS;
+
+    public NTMExplorer(NTM m) {
+        ArrayList<String> stList = new ArrayList<>(m.getStatesSet());
+        Collections.sort(stList);
+        for (String st : stList)
+            stateId(st);
+        ArrayList<String> symList = new ArrayList<>(m.getSymbolsSet());
+        Collections.sort(symList);
+        for (String sym : symList)
+            symbolId(sym);
+        start = stateIds.get(m.getStartState());
+        accept = stateIds.get(m.getAcceptState());
+        reject = stateIds.get(m.getRejectState());
+        blank = symbolIds.get(m.getBlank());
+
+        HashMap<TransitionArgument, List<int[]>> byArg = new HashMap<>();
+        for (Map.Entry<TransitionArgument, TransitionResult> tr : m.getTransitions().flatEntries()) {
+            TransitionResult res = tr.getValue();
+            int[] move = {stateIds.get(res.getState()), symbolIds.get(res.getSymbol()), res.getDirection().getShift()};
+            List<int[]> list = byArg.computeIfAbsent(tr.getKey(), arg -> new ArrayList<>());
+            if (list.stream().noneMatch(mv -> Arrays.equals(mv, move)))
+                list.add(move);
+        }
+        moves = new int[states.size()][symbols.size()][];
+        for (int[][] row : moves)
+            Arrays.fill(row, NO_MOVES);
+        for (Map.Entry<TransitionArgument, List<int[]>> entry : byArg.entrySet()) {
+            TransitionArgument arg = entry.getKey();
+            int[] flat = new int[3 * entry.getValue().size()];
+            for (int i = 0; i < entry.getValue().size(); i++)
+                System.arraycopy(entry.getValue().get(i), 0, flat, 3 * i, 3);
+            moves[stateIds.get(arg.getState())][symbolIds.get(arg.getSymbol())] = flat;
+        }
+    }
+
+    public NTMExplorer strategy(Strategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public NTMExplorer threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public NTMExplorer maxConfigurations(long maxConfigurations) {
+        this.maxConfigurations = maxConfigurations;
+        return this;
+    }
+
+    public long getMaxConfigurations() {
+        return maxConfigurations;
+    }
+
+    private int stateId(String state) {
+        return stateIds.computeIfAbsent(state, st -> {
+            states.add(st);
+            return states.size() - 1;
+        });
+    }
+
+    private synchronized int symbolId(String symbol) {
+        return symbolIds.computeIfAbsent(symbol, sym -> {
+            symbols.add(sym);
+            return symbols.size() - 1;
+        });
+    }
+
+
+
+    public Configuration initial(String input) {
+        int[] tape = new int[input.length()];
+        for (int i = 0; i < input.length(); i++)
+            tape[i] = symbolId(Character.toString(input.charAt(i)));
+        return normalize(start, tape, 0);
+    }
+
+    public Configuration configuration(String state, String[] tape, int head) {
+        Integer st = stateIds.get(state);
+        int[] cells = new int[tape.length];
+        for (int i = 0; i < tape.length; i++)
+            cells[i] = symbolId(tape[i]);
+        return normalize(st == null? reject : st, cells, head);
+    }
+
+    public String getState(Configuration c) {
+        return states.get(c.state);
+    }
+
+    public synchronized String getSymbol(Configuration c, int i) {
+        return symbols.get(c.tape[i]);
+    }
+
+    public boolean isBlank(Configuration c, int i) {
+        return c.tape[i] == blank;
+    }
+
+    public boolean isAccepting(Configuration c) {
+        return c.state == accept;
+    }
+
+    public boolean isRejecting(Configuration c) {
+        return c.state == reject;
+    }
+
+    public boolean isTerminal(Configuration c) {
+        return c.state == accept || c.state == reject;
+    }
+
+    public Configuration rejecting(Configuration c) {
+        return new Configuration(reject, c.tape, c.head);
+    }
+
+    public List<Configuration> successors(Configuration c) {
+        if (isTerminal(c))
+            return List.of();
+        int sym = c.tape[c.head];
+        int[] mv = sym < moves[c.state].length? moves[c.state][sym] : NO_MOVES;
+        if (mv.length == 0)
+            return List.of(rejecting(c));
+        ArrayList<Configuration> next = new ArrayList<>(mv.length / 3);
+        for (int i = 0; i < mv.length; i += 3) {
+            int[] tape = c.tape.clone();
+            tape[c.head] = mv[i + 1];
+            next.add(normalize(mv[i], tape, c.head + mv[i + 2]));
+        }
+        return next;
+    }
+
+    private Configuration normalize(int state, int[] tape, int head) {
+        int from = 0, to = tape.length;
+        while (from < to && tape[from] == blank)
+            from++;
+        while (to > from && tape[to - 1] == blank)
+            to--;
+        int lo = Math.min(from == to? head : from, head), hi = Math.max(from == to? head + 1 : to, head + 1);
+        if (lo == 0 && hi == tape.length)
+            return new Configuration(state, tape, head);
+        int[] cells = new int[hi - lo];
+        Arrays.fill(cells, blank);
+        if (to > from)
+            System.arraycopy(tape, from, cells, from - lo, to - from);
+        return new Configuration(state, cells, head - lo);
+    }
+
+
+
+    public Result explore(String input, long maxDepth) {
+        Configuration root = initial(input);
+        ForkJoinPool pool = POOLS.computeIfAbsent(Math.max(1, threads), ForkJoinPool::new);
+        return strategy == Strategy.BFS? breadthFirst(root, maxDepth, pool) : iterativeDeepening(root, maxDepth, pool);
+    }
+
+    private Result breadthFirst(Configuration root, long maxDepth, ForkJoinPool pool) {
+        ConcurrentHashMap<Configuration, Configuration> seen = new ConcurrentHashMap<>();
+        seen.put(root, root);
+        if (isAccepting(root))
+            return new Result(RunVerdict.ACCEPT, 0, 1, root);
+        AtomicLong explored = new AtomicLong(1);
+        AtomicBoolean exhausted = new AtomicBoolean();
+        List<Configuration> frontier = List.of(root);
+        long depth = 0;
+        while (depth < maxDepth && !frontier.isEmpty()) {
+            depth++;
+            List<Configuration> layer = frontier;
+            frontier = pool.submit(() -> layer.parallelStream()
+                    .filter(c -> !exhausted.get())
+                    .flatMap(c -> successors(c).stream())
+                    .filter(c -> admit(c, seen, explored, exhausted))
+                    .collect(Collectors.toList())).join();
+            for (Configuration c : frontier) {
+                if (isAccepting(c))
+                    return new Result(RunVerdict.ACCEPT, depth, explored.get(), c);
+            }
+            if (exhausted.get())
+                return new Result(RunVerdict.UNDECIDED, depth, explored.get(), null);
+        }
+        return new Result(frontier.isEmpty()? RunVerdict.REJECT : RunVerdict.UNDECIDED, depth, explored.get(), null);
+    }
+
+    private boolean admit(Configuration c, ConcurrentHashMap<Configuration, Configuration> seen,
+                          AtomicLong explored, AtomicBoolean exhausted) {
+        if (exhausted.get() || seen.putIfAbsent(c, c) != null)
+            return false;
+        if (explored.incrementAndGet() > maxConfigurations)
+            exhausted.set(true);
+        return true;
+    }
+
+    private Result iterativeDeepening(Configuration root, long maxDepth, ForkJoinPool pool) {
+        long explored = 0;
+        for (long limit = 0; limit <= maxDepth; limit++) {
+            Probe probe = new Probe(limit, maxConfigurations - explored);
+            pool.invoke(new DepthTask(probe, root, 0));
+            explored += probe.visited.get();
+            if (probe.found.get() != null)
+                return new Result(RunVerdict.ACCEPT, limit, explored, probe.found.get());
+            if (probe.exhausted.get())
+                return new Result(RunVerdict.UNDECIDED, limit, explored, null);
+            if (!probe.cut.get())
+                return new Result(RunVerdict.REJECT, limit, explored, null);
+        }
+        return new Result(RunVerdict.UNDECIDED, maxDepth, explored, null);
+    }
+
+    private class DepthTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Probe probe;
+        private final Configuration root;
+        private final long depth;
+
+        DepthTask(Probe probe, Configuration root, long depth) {
+            this.probe = probe;
+            this.root = root;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth < FORK_DEPTH && depth < probe.limit) {
+                if (visit(root, depth))
+                    return;
+                invokeAll(successors(root).stream()
+                        .distinct()
+                        .map(c -> new DepthTask(probe, c, depth + 1))
+                        .collect(Collectors.toList()));
+                return;
+            }
+
+            ArrayDeque<Configuration> stack = new ArrayDeque<>(List.of(root));
+            ArrayDeque<Long> depths = new ArrayDeque<>(List.of(depth));
+            while (!stack.isEmpty()) {
+                Configuration c = stack.removeLast();
+                long d = depths.removeLast();
+                if (visit(c, d))
+                    continue;
+                for (Configuration next : new LinkedHashSet<>(successors(c))) {
+                    stack.addLast(next);
+                    depths.addLast(d + 1);
+                }
+            }
+        }
+
+        private boolean visit(Configuration c, long d) {
+            if (probe.found.get() != null || probe.exhausted.get())
+                return true;
+            if (probe.visited.incrementAndGet() > probe.budget) {
+                probe.exhausted.set(true);
+                return true;
+            }
+            if (isAccepting(c)) {
+                probe.found.compareAndSet(null, c);
+                return true;
+            }
+            if (isTerminal(c))
+                return true;
+            if (d == probe.limit) {
+                probe.cut.set(true);
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    private static class Probe {
+
+        final long limit;
+        final long budget;
+        final AtomicLong visited = new AtomicLong();
+        final AtomicReference<Configuration> found = new AtomicReference<>();
+        final AtomicBoolean cut = new AtomicBoolean();
+        final AtomicBoolean exhausted = new AtomicBoolean();
+
+        Probe(long limit, long budget) {
+            this.limit = limit;
+            this.budget = budget;
+        }
+
+    }
+
+
+
+    public enum Strategy {
+        BFS, ITERATIVE_DEEPENING
+    }
+
+    public static final class Configuration {
+
+        private final int state;
+        private final int[] tape;
+        private final int head;
+        private final int hash;
+
+        private Configuration(int state, int[] tape, int head) {
+            this.state = state;
+            this.tape = tape;
+            this.head = head;
+            this.hash = 31 * (31 * state + head) + Arrays.hashCode(tape);
+        }
+
+        public int getTapeSize() {
+            return tape.length;
+        }
+
+        public int getHead() {
+            return head;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Configuration))
+                return false;
+            Configuration that = (Configuration) o;
+            return hash == that.hash && state == that.state && head == that.head && Arrays.equals(tape, that.tape);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    public static final class Result {
+
+        private final RunVerdict verdict;
+        private final long depth;
+        private final long explored;
+        private final Configuration accepting;
+
+        private Result(RunVerdict verdict, long depth, long explored, Configuration accepting) {
+            this.verdict = verdict;
+            this.depth = depth;
+            this.explored = explored;
+            this.accepting = accepting;
+        }
+
+        public RunVerdict getVerdict() {
+            return verdict;
+        }
+
+        public long getDepth() {
+            return depth;
+        }
+
+        public long getExplored() {
+            return explored;
+        }
+
+        public Configuration getAccepting() {
+            return accepting;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package machines.exec;
+
+import machines.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.*;
+
+public class SpaceTimeDiagram {
+
+    private static final byte BLANK_SHADE = (byte) 255;
+    private static final byte HEAD_SHADE = 0;
+    private static final int HEIGHT_DIGITS = 19;
+    private static final int DEFAULT_WIDTH = 1024;
+    private static final long DEFAULT_MAX_STEPS = 1_000_000;
+
+    private final Machine machine;
+    private final int width;
+    private final HashMap<String, Byte> shades = new HashMap<>();
+    private final byte[] row;
+
+    private int tape = 0;
+    private long rowStride = 1;
+    private long colStride = 1;
+
+    private long origin;
+    private long headPos;
+    private long rows;
+
+    public SpaceTimeDiagram(Machine machine, int width) {
+        if (width < 1)
+            throw new IllegalArgumentException("Diagram must be at least 1 column wide");
+        this.machine = machine;
+        this.width = width;
+        this.row = new byte[width];
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        if (args.length < 4) {
+            System.err.println("Usage: <type> <description> <input> <diagram.pgm> [width] [maxSteps] [rowStride] [columnStride]");
+            return;
+        }
+        Machine m = MachineType.valueOf(args[0].toUpperCase()).create();
+        m.parse(Files.readString(Path.of(args[1]))).throwFirstError();
+        SpaceTimeDiagram diagram = new SpaceTimeDiagram(m, args.length > 4? Integer.parseInt(args[4]) : DEFAULT_WIDTH);
+        if (args.length > 6)
+            diagram.rowStride(Long.parseLong(args[6]));
+        if (args.length > 7)
+            diagram.columnStride(Long.parseLong(args[7]));
+        long rows = diagram.render(args[2], args.length > 5? Long.parseLong(args[5]) : DEFAULT_MAX_STEPS, Path.of(args[3]));
+        System.out.println(rows + " rows written to " + args[3]);
+    }
+
+
+
+    public SpaceTimeDiagram tape(int tape) {
+        this.tape = tape;
+        return this;
+    }
+
+    public SpaceTimeDiagram rowStride(long rowStride) {
+        this.rowStride = Math.max(1, rowStride);
+        return this;
+    }
+
+    public SpaceTimeDiagram columnStride(long colStride) {
+        this.colStride = Math.max(1, colStride);
+        return this;
+    }
+
+
+
+    public long render(String input, long maxSteps, Path path) throws IOException {
+        shades.clear();
+        ArrayList<String> symbols = new ArrayList<>(machine.getSymbolsSet(tape));
+        symbols.remove(machine.getBlank());
+        Collections.sort(symbols);
+        for (int i = 0; i < symbols.size(); i++)
+            shades.put(symbols.get(i), (byte) (64 + 160 * i / Math.max(1, symbols.size() - 1)));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            out.write(header(0));
+
+            machine.init(input);
+            origin = -(width / 8) * colStride;
+            headPos = 0;
+            rows = 0;
+            writeRow(out);
+            long steps = 0;
+            while (steps < maxSteps && !machine.isInTerminalState()) {
+                machine.makeStep();
+                steps++;
+                trackHead();
+                if (steps % rowStride == 0 || machine.isInTerminalState())
+                    writeRow(out);
+            }
+            out.flush();
+            channel.write(ByteBuffer.wrap(header(rows)), 0);
+        }
+        return rows;
+    }
+
+
+
+    private byte[] header(long height) {
+        String padded = String.format("%-" + HEIGHT_DIGITS + "d", height);
+        return String.format("P5\n%d %s\n255\n", width, padded).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void trackHead() {
+        TransitionArgument arg = machine.getLastTransition();
+        TransitionResult res = arg == null? null : machine.getTransitions().get(arg);
+        if (res == null || res.getDirections() == null || res.getDirections().length <= tape)
+            return;
+        switch (res.getDirections()[tape]) {
+            case RIGHT:
+                headPos++;
+                break;
+            case LEFT:
+                headPos--;
+                break;
+        }
+    }
+
+    private void writeRow(OutputStream out) throws IOException {
+        Arrays.fill(row, BLANK_SHADE);
+        long size = machine.getTapeSize(tape), head = machine.getTapeHead(tape);
+        long cellsOrigin = headPos - head;
+        long from = Math.max(0, origin - cellsOrigin), to = Math.min(size, origin + width * colStride - cellsOrigin);
+        for (long i = from; i < to; i++) {
+            byte shade = shades.getOrDefault(machine.getTapeContent(tape, i), BLANK_SHADE);
+            int col = column(cellsOrigin + i);
+            row[col] = (byte) Math.min(row[col] & 0xff, shade & 0xff);
+        }
+        long headCol = Math.floorDiv(headPos - origin, colStride);
+        if (headCol >= 0 && headCol < width)
+            row[(int) headCol] = HEAD_SHADE;
+        out.write(row);
+        rows++;
+    }
+
+    private int column(long pos) {
+        return (int) ((pos - origin) / colStride);
+    }
+
+}
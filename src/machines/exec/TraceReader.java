@@ -0,0 +1,175 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineIndex;
+import machines.MachineSnapshot;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+public class TraceReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Machine machine;
+    private final MachineIndex index;
+    private final String input;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Path indexPath;
+    private final ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+    private long steps = 0;
+
+    public TraceReader(Path path, Machine machine) throws IOException {
+        this(path, machine, new MachineIndex(machine));
+    }
+
+    public TraceReader(Path path, Machine machine, MachineIndex index) throws IOException {
+        this.machine = machine;
+        this.index = index;
+        this.indexPath = Path.of(path + TraceWriter.INDEX_SUFFIX);
+
+        channel = FileChannel.open(path);
+        buffer.limit(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        if (in.readInt() != TraceWriter.MAGIC)
+            throw new IOException("Not a trace file: " + path);
+        if (in.readInt() != TraceWriter.VERSION)
+            throw new IOException("Unsupported trace version: " + path);
+        if (!MachineSnapshot.readString(in).equals(machine.fingerprint()))
+            throw new IOException("Trace was recorded for another machine: " + path);
+        input = MachineSnapshot.readString(in);
+        in.readLong();
+
+        readIndex();
+        machine.init(input);
+        restore(checkpoints.get(0));
+    }
+
+    private void readIndex() throws IOException {
+        try (FileChannel idx = FileChannel.open(indexPath)) {
+            ByteBuffer entry = ByteBuffer.allocate(3 * Long.BYTES);
+            long size = idx.size();
+            for (long pos = 0; pos + entry.capacity() <= size; ) {
+                entry.clear();
+                while (entry.hasRemaining() && idx.read(entry, pos + entry.position()) > 0) { }
+                long step = entry.getLong(0), offset = entry.getLong(Long.BYTES), length = entry.getLong(2 * Long.BYTES);
+                pos += entry.capacity();
+                if (length < 0 || pos + length > size)
+                    break;
+                checkpoints.add(new Checkpoint(step, offset, pos));
+                pos += length;
+            }
+        }
+        if (checkpoints.isEmpty())
+            throw new IOException("Empty trace index: " + indexPath);
+    }
+
+
+
+    public String getInput() {
+        return input;
+    }
+
+    public Machine getMachine() {
+        return machine;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public boolean replayStep() throws IOException {
+        int id = readVarInt();
+        if (id == -1)
+            return false;
+        machine.makeStep();
+        if (index.transitionId(machine.getLastTransition()) + 1 != id)
+            throw new IllegalStateException(String.format("Trace diverges from the machine at step %d", steps + 1));
+        steps++;
+        return true;
+    }
+
+    public long replay(long maxSteps) throws IOException {
+        long done = 0;
+        while (done < maxSteps && replayStep())
+            done++;
+        return done;
+    }
+
+    public void seek(long step) throws IOException {
+        int lo = 0, hi = checkpoints.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (checkpoints.get(mid).step <= step)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        Checkpoint cp = checkpoints.get(lo);
+        if (step < steps || cp.step > steps)
+            restore(cp);
+        replay(step - steps);
+    }
+
+    private void restore(Checkpoint cp) throws IOException {
+        machine.restore(cp.load());
+        channel.position(cp.traceOffset);
+        buffer.limit(0);
+        steps = cp.step;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read <= 0) {
+                    if (shift == 0)
+                        return -1;
+                    throw new EOFException("Truncated trace entry");
+                }
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+
+
+    private class Checkpoint {
+
+        private final long step;
+        private final long traceOffset;
+        private final long indexOffset;
+
+        Checkpoint(long step, long traceOffset, long indexOffset) {
+            this.step = step;
+            this.traceOffset = traceOffset;
+            this.indexOffset = indexOffset;
+        }
+
+        MachineSnapshot load() throws IOException {
+            try (FileChannel idx = FileChannel.open(indexPath)) {
+                idx.position(indexOffset);
+                return MachineSnapshot.read(new DataInputStream(new BufferedInputStream(Channels.newInputStream(idx))));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package machines.exec;
+
+import machines.Machine;
+import machines.MachineIndex;
+import machines.MachineSnapshot;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x544d5452;
+    static final int VERSION = 3;
+    static final String INDEX_SUFFIX = ".idx";
+
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Machine machine;
+    private final MachineIndex index;
+    private final long checkpointInterval;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final FileChannel indexChannel;
+    private final DataOutputStream indexOut;
+    private long steps = 0;
+
+    public TraceWriter(Path path, Machine machine, String input) throws IOException {
+        this(path, machine, new MachineIndex(machine), input, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public TraceWriter(Path path, Machine machine, MachineIndex index, String input, long checkpointInterval) throws IOException {
+        this.machine = machine;
+        this.index = index;
+        this.checkpointInterval = checkpointInterval;
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        indexChannel = FileChannel.open(Path.of(path + INDEX_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        indexOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(indexChannel)));
+
+        DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        MachineSnapshot.writeString(header, machine.fingerprint());
+        MachineSnapshot.writeString(header, input);
+        header.writeLong(checkpointInterval);
+        header.flush();
+        writeCheckpoint();
+    }
+
+
+
+    public void recordStep() throws IOException {
+        if (buffer.remaining() < 5)
+            flush();
+        putVarInt(index.transitionId(machine.getLastTransition()) + 1);
+        steps++;
+        if (steps % checkpointInterval == 0)
+            writeCheckpoint();
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    private void putVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // The snapshot is streamed into the index behind a length placeholder that is patched afterwards,
+    // so a checkpoint never has to fit in memory as a byte array.
+    private void writeCheckpoint() throws IOException {
+        indexOut.writeLong(steps);
+        indexOut.writeLong(channel.position() + buffer.position());
+        indexOut.flush();
+        long start = indexChannel.position();
+        indexOut.writeLong(0);
+        machine.snapshot().write(indexOut);
+        indexOut.flush();
+        ByteBuffer length = ByteBuffer.allocate(Long.BYTES).putLong(0, indexChannel.position() - start - Long.BYTES);
+        while (length.hasRemaining())
+            indexChannel.write(length, start + length.position());
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+        indexOut.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel; indexChannel) {
+            flush();
+        }
+    }
+
+}
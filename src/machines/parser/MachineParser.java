@@ -2,6 +2,7 @@ package machines.parser;
 
 import misc.Graph;
 
+import java.text.ParseException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -85,6 +86,8 @@ public class MachineParser {
         verdict = new ParseVerdict();
 
         while (scanner.hasNextLine()) {
+            if (Thread.currentThread().isInterrupted())
+                return verdict.putError(new ParseException("Parsing cancelled", line));
             line++;
 
             String line = scanner.nextLine();
@@ -0,0 +1,58 @@
+package machines.table;
+
+import java.util.*;
+import java.util.function.Function;
+
+public class CharClasses {
+
+    private static final int CHARS = Character.MAX_VALUE + 1;
+
+    private final byte[] byteMap;
+    private final char[] charMap;
+    private final int count;
+    private final char[] representatives;
+
+    private CharClasses(int[] classOf, int count) {
+        this.count = count;
+        if (count <= 256) {
+            byteMap = new byte[CHARS];
+            charMap = null;
+            for (int c = 0; c < CHARS; c++)
+                byteMap[c] = (byte) classOf[c];
+        } else {
+            byteMap = null;
+            charMap = new char[CHARS];
+            for (int c = 0; c < CHARS; c++)
+                charMap[c] = (char) classOf[c];
+        }
+        representatives = new char[count];
+        for (int c = CHARS - 1; c >= 0; c--)
+            representatives[classOf[c]] = (char) c;
+    }
+
+    public static <T> CharClasses of(Collection<Character> chars, Function<Character, T> behaviour, T none) {
+        HashMap<T, Integer> ids = new HashMap<>();
+        ids.put(none, 0);
+        int[] classOf = new int[CHARS];
+        for (char c : new TreeSet<>(chars)) {
+            Integer id = ids.putIfAbsent(behaviour.apply(c), ids.size());
+            classOf[c] = id == null? ids.size() - 1 : id;
+        }
+        return new CharClasses(classOf, ids.size());
+    }
+
+
+
+    public int of(char c) {
+        return byteMap != null? byteMap[c] & 0xff : charMap[c];
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public char representative(int cls) {
+        return representatives[cls];
+    }
+
+}
@@ -0,0 +1,291 @@
+package machines.table;
+
+import machines.DFA;
+import machines.TransitionArgument;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class DFATable {
+
+    private static final int CHUNK_SIZE = 1 << 22;
+    private static final int COMPACT_PERIOD = 256;
+    private static final int LANES = 8;
+
+    private final String[] states;
+    private final int dead;
+    private final int start;
+    private final boolean[] accepting;
+    private final boolean[] live;
+    private final CharClasses classes;
+    private final int columns;
+    private final int[] next;
+
+    public DFATable(DFA dfa) {
+        TreeSet<String> stSet = new TreeSet<>(dfa.getStatesSet());
+        stSet.remove(dfa.getRejectState());
+        states = stSet.toArray(new String[0]);
+        dead = states.length;
+        HashMap<String, Integer> stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++)
+            stateIds.put(states[i], i);
+        stateIds.put(dfa.getRejectState(), dead);
+        start = stateIds.get(dfa.getStartState());
+
+        accepting = new boolean[states.length + 1];
+        for (String st : dfa.getAcceptStates()) {
+            if (stateIds.containsKey(st))
+                accepting[stateIds.get(st)] = true;
+        }
+        accepting[dead] = false;
+
+        HashMap<Character, int[]> targets = new HashMap<>();
+        for (TransitionArgument arg : dfa.getTransitions().args()) {
+            if (arg.getSymbol().length() != 1 || stateIds.get(arg.getState()) == dead)
+                continue;
+            int[] column = targets.computeIfAbsent(arg.getSymbol().charAt(0), c -> {
+                int[] col = new int[states.length + 1];
+                Arrays.fill(col, dead);
+                return col;
+            });
+            column[stateIds.get(arg.getState())] = stateIds.get(dfa.getTransitions().get(arg).getState());
+        }
+        int[] none = new int[states.length + 1];
+        Arrays.fill(none, dead);
+        classes = CharClasses.of(targets.keySet(), c -> IntBuffer.wrap(targets.get(c)), IntBuffer.wrap(none));
+        columns = classes.count();
+
+        next = new int[(states.length + 1) * columns];
+        Arrays.fill(next, dead);
+        for (Map.Entry<Character, int[]> column : targets.entrySet()) {
+            int cls = classes.of(column.getKey());
+            for (int s = 0; s < column.getValue().length; s++)
+                next[s * columns + cls] = column.getValue()[s];
+        }
+        live = coReachable();
+    }
+
+    private boolean[] coReachable() {
+        int n = states.length + 1;
+        ArrayList<ArrayList<Integer>> sources = new ArrayList<>();
+        for (int s = 0; s < n; s++)
+            sources.add(new ArrayList<>());
+        for (int s = 0; s < n; s++) {
+            for (int c = 0; c < columns; c++)
+                sources.get(next[s * columns + c]).add(s);
+        }
+        boolean[] reached = new boolean[n];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < n; s++) {
+            if (accepting[s]) {
+                reached[s] = true;
+                queue.add(s);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (int from : sources.get(queue.poll())) {
+                if (!reached[from]) {
+                    reached[from] = true;
+                    queue.add(from);
+                }
+            }
+        }
+        return reached;
+    }
+
+
+
+    public int states() {
+        return states.length + 1;
+    }
+
+    public CharClasses getClasses() {
+        return classes;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public String getState(int state) {
+        return state == dead? null : states[state];
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    public boolean isDead(int state) {
+        return !live[state];
+    }
+
+    public int step(int state, char c) {
+        return next[state * columns + classes.of(c)];
+    }
+
+    public int run(int state, CharSequence input, int from, int to) {
+        for (int i = from; i < to && state != dead; i++)
+            state = next[state * columns + classes.of(input.charAt(i))];
+        return state;
+    }
+
+    public boolean accepts(CharSequence input) {
+        return accepting[run(start, input, 0, input.length())];
+    }
+
+
+
+    public BitSet acceptsAll(char[] data, int[] offsets) {
+        int inputs = offsets.length - 1;
+        BitSet verdicts = new BitSet(inputs);
+        int[] lane = new int[LANES], state = new int[LANES], pos = new int[LANES], end = new int[LANES];
+        int loaded = 0, live = 0;
+        for (int l = 0; l < LANES; l++) {
+            lane[l] = loaded < inputs? loaded++ : -1;
+            if (lane[l] != -1) {
+                state[l] = start;
+                pos[l] = offsets[lane[l]];
+                end[l] = offsets[lane[l] + 1];
+                live++;
+            }
+        }
+
+        while (live > 0) {
+            for (int l = 0; l < LANES; l++) {
+                if (pos[l] < end[l]) {
+                    int st = next[state[l] * columns + classes.of(data[pos[l]++])];
+                    state[l] = st;
+                    if (st == dead)
+                        pos[l] = end[l];
+                } else if (lane[l] != -1) {
+                    if (accepting[state[l]])
+                        verdicts.set(lane[l]);
+                    if (loaded < inputs) {
+                        lane[l] = loaded++;
+                        state[l] = start;
+                        pos[l] = offsets[lane[l]];
+                        end[l] = offsets[lane[l] + 1];
+                    } else {
+                        lane[l] = -1;
+                        live--;
+                    }
+                }
+            }
+        }
+        return verdicts;
+    }
+
+    public BitSet acceptsAll(List<? extends CharSequence> inputs) {
+        int[] offsets = new int[inputs.size() + 1];
+        for (int i = 0; i < inputs.size(); i++)
+            offsets[i + 1] = offsets[i] + inputs.get(i).length();
+        char[] data = new char[offsets[inputs.size()]];
+        for (int i = 0; i < inputs.size(); i++) {
+            CharSequence in = inputs.get(i);
+            for (int j = 0; j < in.length(); j++)
+                data[offsets[i] + j] = in.charAt(j);
+        }
+        return acceptsAll(data, offsets);
+    }
+
+    public boolean acceptsParallel(CharSequence input) {
+        int chunks = (input.length() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks <= 1)
+            return accepts(input);
+        int[][] maps = IntStream.range(0, chunks).parallel()
+                .mapToObj(ch -> chunkMap(ch == 0, input::charAt,
+                        ch * CHUNK_SIZE, Math.min(input.length(), (ch + 1) * CHUNK_SIZE)))
+                .toArray(int[][]::new);
+        return accepting[compose(maps)];
+    }
+
+    public boolean acceptsParallel(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            int chunks = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            if (chunks == 0)
+                return accepting[start];
+            int[][] maps = new int[chunks][];
+            IOException[] failure = new IOException[1];
+            IntStream.range(0, chunks).parallel().forEach(ch -> {
+                try {
+                    long from = (long) ch * CHUNK_SIZE;
+                    MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(CHUNK_SIZE, size - from));
+                    maps[ch] = chunkMap(ch == 0, i -> (char) (buf.get(i) & 0xff), 0, buf.limit());
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null)
+                throw failure[0];
+            return accepting[compose(maps)];
+        }
+    }
+
+    private int compose(int[][] maps) {
+        int state = start;
+        for (int[] map : maps)
+            state = map[state];
+        return state;
+    }
+
+    private int[] chunkMap(boolean fromStartOnly, CharSource input, int from, int to) {
+        int n = states();
+        int[] owner = new int[n];
+        int[] active;
+        if (fromStartOnly) {
+            active = new int[] {start};
+            Arrays.fill(owner, 0);
+        } else {
+            active = new int[n];
+            for (int s = 0; s < n; s++)
+                owner[s] = active[s] = s;
+        }
+        int count = active.length;
+
+        for (int i = from; i < to; i++) {
+            int col = classes.of(input.charAt(i));
+            for (int k = 0; k < count; k++)
+                active[k] = next[active[k] * columns + col];
+            if ((i - from) % COMPACT_PERIOD == COMPACT_PERIOD - 1 && count > 1)
+                count = compact(active, count, owner);
+        }
+
+        int[] map = new int[n];
+        for (int s = 0; s < n; s++)
+            map[s] = active[owner[s]];
+        return map;
+    }
+
+    private static int compact(int[] active, int count, int[] owner) {
+        HashMap<Integer, Integer> slot = new HashMap<>();
+        int[] remap = new int[count];
+        int newCount = 0;
+        for (int k = 0; k < count; k++) {
+            Integer existing = slot.putIfAbsent(active[k], newCount);
+            if (existing == null) {
+                remap[k] = newCount;
+                active[newCount++] = active[k];
+            } else {
+                remap[k] = existing;
+            }
+        }
+        if (newCount == count)
+            return count;
+        for (int s = 0; s < owner.length; s++)
+            owner[s] = remap[owner[s]];
+        return newCount;
+    }
+
+
+
+    private interface CharSource {
+        char charAt(int i);
+    }
+
+}
@@ -0,0 +1,144 @@
+package machines.table;
+
+import machines.DFA;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Arrays;
+
+public class DFATokenizer {
+
+    public static final int NO_MATCH = -1;
+
+    public static final int DEFAULT_MAX_LOOKAHEAD = 1 << 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DFATable table;
+    private int maxLookahead = DEFAULT_MAX_LOOKAHEAD;
+
+    public DFATokenizer(DFA dfa) {
+        this(new DFATable(dfa));
+    }
+
+    public DFATokenizer(DFATable table) {
+        this.table = table;
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        if (args.length < 2) {
+            System.err.println("Usage: <dfa description> <text> [maxLookahead]");
+            return;
+        }
+        DFA dfa = new DFA();
+        dfa.parse(Files.readString(Path.of(args[0]))).throwFirstError();
+        DFATokenizer tokenizer = new DFATokenizer(dfa);
+        if (args.length > 2)
+            tokenizer.maxLookahead(Integer.parseInt(args[2]));
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out), false);
+        try (Reader reader = Files.newBufferedReader(Path.of(args[1]))) {
+            tokenizer.tokenize(reader, (kind, start, end) -> {
+                String name = tokenizer.kindName(kind);
+                out.println(start + "\t" + end + "\t" + (name == null? "-" : name));
+            });
+        }
+        out.flush();
+    }
+
+
+
+    // A token is never scanned further than maxLookahead characters past its start, so a DFA that never
+    // reaches a dead state costs O(n * maxLookahead) time and O(maxLookahead) buffer instead of O(n^2) and O(n).
+    // Matches longer than the bound are cut at the last accepting position inside it.
+    public DFATokenizer maxLookahead(int maxLookahead) {
+        this.maxLookahead = Math.max(1, maxLookahead);
+        return this;
+    }
+
+    public String kindName(int kind) {
+        return kind == NO_MATCH? null : table.getState(kind);
+    }
+
+    public long tokenize(CharSequence text, Sink sink) {
+        long tokens = 0;
+        int start = 0, end = text.length();
+        while (start < end) {
+            int state = table.getStart(), lastKind = NO_MATCH, lastEnd = start;
+            int limit = (int) Math.min(end, (long) start + maxLookahead);
+            for (int i = start; i < limit; i++) {
+                state = table.step(state, text.charAt(i));
+                if (table.isDead(state))
+                    break;
+                if (table.isAccepting(state)) {
+                    lastKind = state;
+                    lastEnd = i + 1;
+                }
+            }
+            if (lastKind == NO_MATCH)
+                lastEnd = start + 1;
+            sink.token(lastKind, start, lastEnd);
+            tokens++;
+            start = lastEnd;
+        }
+        return tokens;
+    }
+
+    public long tokenize(Reader reader, Sink sink) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        long offset = 0;
+        int len = 0;
+        boolean eof = false;
+        long tokens = 0;
+
+        int start = 0;
+        while (true) {
+            int state = table.getStart(), lastKind = NO_MATCH, lastEnd = start;
+            int i = start;
+            while (i - start < maxLookahead) {
+                if (i == len) {
+                    if (eof)
+                        break;
+                    if (start > 0) {
+                        System.arraycopy(buf, start, buf, 0, len - start);
+                        offset += start;
+                        len -= start;
+                        i -= start;
+                        lastEnd -= start;
+                        start = 0;
+                    }
+                    if (len == buf.length)
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    int read = reader.read(buf, len, buf.length - len);
+                    if (read == -1) {
+                        eof = true;
+                        break;
+                    }
+                    len += read;
+                }
+                state = table.step(state, buf[i++]);
+                if (table.isDead(state))
+                    break;
+                if (table.isAccepting(state)) {
+                    lastKind = state;
+                    lastEnd = i;
+                }
+            }
+            if (start == len && eof)
+                return tokens;
+            if (lastKind == NO_MATCH)
+                lastEnd = start + 1;
+            sink.token(lastKind, offset + start, offset + lastEnd);
+            tokens++;
+            start = lastEnd;
+        }
+    }
+
+
+
+    public interface Sink {
+        void token(int kind, long start, long end);
+    }
+
+}
@@ -0,0 +1,124 @@
+package machines.table;
+
+import machines.NFA;
+import machines.TransitionArgument;
+import machines.TransitionResult;
+
+import java.nio.LongBuffer;
+import java.util.*;
+
+public class NFAMasks {
+
+    public static final int MAX_STATES = 64;
+
+    private final String[] states;
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final long start;
+    private final long accept;
+    private final CharClasses classes;
+    private final int columns;
+    private final long[] succ;
+
+    private NFAMasks(NFA nfa, String[] states) {
+        this.states = states;
+        for (int i = 0; i < states.length; i++)
+            ids.put(states[i], i);
+
+        long[] closure = new long[states.length];
+        for (int i = 0; i < states.length; i++)
+            closure[i] = 1L << i;
+        for (Map.Entry<TransitionArgument, TransitionResult> tr : nfa.getTransitions().flatEntries()) {
+            if (tr.getKey().getSymbol().equals(nfa.getEps()))
+                closure[ids.get(tr.getKey().getState())] |= 1L << ids.get(tr.getValue().getState());
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < states.length; i++) {
+                long cl = close(closure, closure[i]);
+                if (cl != closure[i]) {
+                    closure[i] = cl;
+                    changed = true;
+                }
+            }
+        }
+        start = closure[ids.get(nfa.getStartState())];
+        accept = toMask(nfa.getAcceptStates());
+
+        HashMap<Character, long[]> targets = new HashMap<>();
+        for (Map.Entry<TransitionArgument, TransitionResult> tr : nfa.getTransitions().flatEntries()) {
+            if (tr.getKey().getSymbol().length() != 1)
+                continue;
+            long[] column = targets.computeIfAbsent(tr.getKey().getSymbol().charAt(0), c -> new long[states.length]);
+            column[ids.get(tr.getKey().getState())] |= closure[ids.get(tr.getValue().getState())];
+        }
+        classes = CharClasses.of(targets.keySet(), c -> LongBuffer.wrap(targets.get(c)), LongBuffer.wrap(new long[states.length]));
+        columns = classes.count();
+        succ = new long[states.length * columns];
+        for (Map.Entry<Character, long[]> column : targets.entrySet()) {
+            int cls = classes.of(column.getKey());
+            for (int s = 0; s < states.length; s++)
+                succ[s * columns + cls] = column.getValue()[s];
+        }
+    }
+
+    public static NFAMasks of(NFA nfa) {
+        TreeSet<String> stSet = new TreeSet<>(nfa.getStatesSet());
+        if (stSet.size() > MAX_STATES)
+            return null;
+        return new NFAMasks(nfa, stSet.toArray(new String[0]));
+    }
+
+    private static long close(long[] closure, long mask) {
+        long res = mask;
+        for (long m = mask; m != 0; m &= m - 1)
+            res |= closure[Long.numberOfTrailingZeros(m)];
+        return res;
+    }
+
+
+
+    public long getStart() {
+        return start;
+    }
+
+    public boolean isAccepting(long mask) {
+        return (mask & accept) != 0;
+    }
+
+    public long step(long mask, char c) {
+        int cls = classes.of(c);
+        long next = 0;
+        for (long m = mask; m != 0; m &= m - 1)
+            next |= succ[Long.numberOfTrailingZeros(m) * columns + cls];
+        return next;
+    }
+
+    public long run(long mask, CharSequence input) {
+        for (int i = 0; i < input.length() && mask != 0; i++)
+            mask = step(mask, input.charAt(i));
+        return mask;
+    }
+
+    public boolean accepts(CharSequence input) {
+        return isAccepting(run(start, input));
+    }
+
+    public TreeSet<String> toStates(long mask) {
+        TreeSet<String> res = new TreeSet<>();
+        for (long m = mask; m != 0; m &= m - 1)
+            res.add(states[Long.numberOfTrailingZeros(m)]);
+        return res;
+    }
+
+    public long toMask(Collection<String> states) {
+        long mask = 0;
+        for (String st : states) {
+            Integer id = ids.get(st);
+            if (id != null)
+                mask |= 1L << id;
+        }
+        return mask;
+    }
+
+}
@@ -0,0 +1,61 @@
+package machines.tape;
+
+import java.util.*;
+
+public class Alphabet {
+
+    private final ArrayList<String> symbols = new ArrayList<>();
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    private Alphabet() { }
+
+    public Alphabet(String blank, Collection<String> symbols) {
+        id(blank);
+        TreeSet<String> sorted = new TreeSet<>(symbols);
+        for (String sym : sorted)
+            id(sym);
+    }
+
+
+
+    public Alphabet copy() {
+        Alphabet that = new Alphabet();
+        that.symbols.addAll(symbols);
+        that.ids.putAll(ids);
+        return that;
+    }
+
+    public int blank() {
+        return 0;
+    }
+
+    public int id(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            symbols.add(symbol);
+            ids.put(symbol, id);
+        }
+        return id;
+    }
+
+    public String symbol(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public String[] symbols() {
+        return symbols.toArray(new String[0]);
+    }
+
+    public int[] encode(String input) {
+        int[] cells = new int[input.length()];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = id(Character.toString(input.charAt(i)));
+        return cells;
+    }
+
+}
@@ -0,0 +1,210 @@
+package machines.tape;
+
+import java.util.Arrays;
+
+public class DenseTape implements Tape {
+
+    private static final int PAGE_BITS = SparseTape.PAGE_BITS;
+    private static final int PAGE_SIZE = SparseTape.PAGE_SIZE;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_PAGES = 2;
+
+    private final int blank;
+    private int[][] pages;
+    private boolean[] owned;
+    private int start, end, head;
+    private long boundaries;
+    private int[] pageCells;
+    private long occupiedPages;
+
+    public DenseTape(int blank, int[] content, int head) {
+        this.blank = blank;
+        int size = Math.max(1, content.length);
+        int count = Math.max(MIN_PAGES, (2 * size + PAGE_SIZE - 1) >> PAGE_BITS);
+        pages = new int[count][];
+        owned = new boolean[count];
+        pageCells = new int[count];
+        start = (count * PAGE_SIZE - size) / 2;
+        end = start + size;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != blank)
+                set(start + i, content[i]);
+        }
+        this.head = start + head;
+        for (int i = start + 1; i < end; i++) {
+            if (cell(i) != cell(i - 1))
+                boundaries++;
+        }
+    }
+
+    private DenseTape(DenseTape that) {
+        blank = that.blank;
+        pages = that.pages.clone();
+        owned = new boolean[pages.length];
+        Arrays.fill(that.owned, false);
+        start = that.start;
+        end = that.end;
+        head = that.head;
+        boundaries = that.boundaries;
+        pageCells = that.pageCells.clone();
+        occupiedPages = that.occupiedPages;
+    }
+
+    private int cell(int i) {
+        int[] page = pages[i >> PAGE_BITS];
+        return page == null? blank : page[i & PAGE_MASK];
+    }
+
+    private void set(int i, int symbol) {
+        int key = i >> PAGE_BITS;
+        int[] page = pages[key];
+        if (!owned[key]) {
+            if (page == null) {
+                page = new int[PAGE_SIZE];
+                Arrays.fill(page, blank);
+            } else {
+                page = page.clone();
+            }
+            pages[key] = page;
+            owned[key] = true;
+        }
+        int old = page[i & PAGE_MASK];
+        if (old == blank) {
+            if (pageCells[key]++ == 0)
+                occupiedPages++;
+        } else if (symbol == blank) {
+            if (--pageCells[key] == 0)
+                occupiedPages--;
+        }
+        page[i & PAGE_MASK] = symbol;
+    }
+
+
+
+    public int blank() {
+        return blank;
+    }
+
+    public int read() {
+        return cell(head);
+    }
+
+    public void write(int symbol) {
+        int old = cell(head);
+        if (old == symbol)
+            return;
+        if (head > start) {
+            int left = cell(head - 1);
+            boundaries += (left != symbol? 1 : 0) - (left != old? 1 : 0);
+        }
+        if (head + 1 < end) {
+            int right = cell(head + 1);
+            boundaries += (right != symbol? 1 : 0) - (right != old? 1 : 0);
+        }
+        set(head, symbol);
+    }
+
+    public void move(int shift) {
+        head += shift;
+        if (head < start) {
+            if (head < 0)
+                grow();
+            extendTo(head);
+        } else if (head >= end) {
+            if (head >= capacity())
+                grow();
+            extendTo(head);
+        }
+    }
+
+    private void extendTo(int i) {
+        if (i < start) {
+            if (cell(start) != blank)
+                boundaries++;
+            start = i;
+        } else if (i >= end) {
+            if (cell(end - 1) != blank)
+                boundaries++;
+            end = i + 1;
+        }
+    }
+
+    private int capacity() {
+        return pages.length << PAGE_BITS;
+    }
+
+    // Grows by whole pages, so existing pages move into the larger directory without touching their cells.
+    private void grow() {
+        int first = start >> PAGE_BITS, last = (end - 1) >> PAGE_BITS;
+        int used = last - first + 1;
+        int count = pages.length * 2;
+        int offset = (count - used) / 2 - first;
+        int[][] grownPages = new int[count][];
+        boolean[] grownOwned = new boolean[count];
+        int[] grownCells = new int[count];
+        System.arraycopy(pages, first, grownPages, first + offset, used);
+        System.arraycopy(owned, first, grownOwned, first + offset, used);
+        System.arraycopy(pageCells, first, grownCells, first + offset, used);
+        pages = grownPages;
+        owned = grownOwned;
+        pageCells = grownCells;
+        int shift = offset << PAGE_BITS;
+        start += shift;
+        end += shift;
+        head += shift;
+    }
+
+    public long size() {
+        return end - start;
+    }
+
+    public long head() {
+        return head - start;
+    }
+
+    public int get(long i) {
+        return cell(start + (int) i);
+    }
+
+    public long runs() {
+        return boundaries + 1;
+    }
+
+    public Tape copy() {
+        return new DenseTape(this);
+    }
+
+    long occupiedPages() {
+        return occupiedPages;
+    }
+
+    @Override
+    public long runLength(long i) {
+        int from = start + (int) i, to = from + 1, symbol = cell(from);
+        while (to < end && cell(to) == symbol)
+            to++;
+        return to - from;
+    }
+
+    @Override
+    public long runRemaining(int shift) {
+        int symbol = cell(head);
+        int i = head;
+        while (i >= start && i < end && cell(i) == symbol)
+            i += shift;
+        return Math.abs(i - head);
+    }
+
+    @Override
+    public void skip(long cells, int shift) {
+        long target = head + cells * shift;
+        while (target < 0 || target >= capacity()) {
+            int before = start;
+            grow();
+            target += start - before;
+        }
+        head = (int) target;
+        extendTo(head);
+    }
+
+}
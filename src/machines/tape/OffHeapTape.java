@@ -0,0 +1,368 @@
+package machines.tape;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OffHeapTape implements Tape {
+
+    public static final int CHUNK_BITS = 20;
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long CHUNK_BYTES = (long) CHUNK_SIZE * Integer.BYTES;
+    private static final int MIN_DIRECTORY = 8;
+    private static final long MIN_RECLAIM_CHUNKS = 16;
+    private static final long RECLAIM_WAIT_MS = 20;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final ChunkFile FILE = new ChunkFile();
+
+    private final int blank;
+    private final Directory directory = new Directory();
+    private long firstChunk = -MIN_DIRECTORY / 2;
+    private long lo, hi, head;
+    private long boundaries, nonBlank;
+
+    private long chunkIndex;
+    private IntBuffer chunk;
+    private boolean chunkOwned;
+
+    public OffHeapTape(int blank, int[] content, int head) {
+        this.blank = blank;
+        CLEANER.register(this, directory);
+        hi = Math.max(1, content.length);
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != blank) {
+                cell(i, content[i]);
+                nonBlank++;
+            }
+            if (i > 0 && content[i] != content[i - 1])
+                boundaries++;
+        }
+        this.head = head;
+        refresh();
+    }
+
+    public OffHeapTape(Tape that) {
+        blank = that.blank();
+        CLEANER.register(this, directory);
+        hi = that.size();
+        int last = that.get(0);
+        for (long i = 0, n; i < hi; i += n) {
+            n = that.runLength(i);
+            int sym = that.get(i);
+            if (sym != blank) {
+                for (long x = i; x < i + n; x++)
+                    cell(x, sym);
+                nonBlank += n;
+            }
+            if (sym != last)
+                boundaries++;
+            last = sym;
+        }
+        head = that.head();
+        refresh();
+    }
+
+    private OffHeapTape(int blank) {
+        this.blank = blank;
+        CLEANER.register(this, directory);
+    }
+
+    private IntBuffer chunkAt(long index) {
+        long slot = index - firstChunk;
+        Chunk[] chunks = directory.chunks;
+        return slot < 0 || slot >= chunks.length || chunks[(int) slot] == null? null : chunks[(int) slot].buffer;
+    }
+
+    // A chunk shared with copies is cloned before the first write and the shared one released;
+    // the last tape to release a chunk returns its region to the file for reuse.
+    private IntBuffer allocate(long index) {
+        if (index < firstChunk || index >= firstChunk + directory.chunks.length)
+            remap(index);
+        int slot = (int) (index - firstChunk);
+        Chunk shared = directory.chunks[slot];
+        if (shared != null && shared.refs.get() == 1)
+            return shared.buffer;
+        Chunk fresh = FILE.allocate();
+        if (shared != null) {
+            fresh.buffer.put(shared.buffer.duplicate().clear()).clear();
+            shared.release();
+        } else {
+            for (int i = 0; i < CHUNK_SIZE; i++)
+                fresh.buffer.put(i, blank);
+        }
+        directory.chunks[slot] = fresh;
+        return fresh.buffer;
+    }
+
+    private void remap(long index) {
+        Chunk[] chunks = directory.chunks;
+        long from = Math.min(firstChunk, index), to = Math.max(firstChunk + chunks.length, index + 1);
+        long capacity = Math.max(2L * chunks.length, to - from);
+        if (capacity > Integer.MAX_VALUE)
+            throw new IllegalStateException("Tape is too large");
+        Chunk[] remapped = new Chunk[(int) capacity];
+        long newFirst = index < firstChunk? to - capacity : from;
+        System.arraycopy(chunks, 0, remapped, (int) (firstChunk - newFirst), chunks.length);
+        directory.chunks = remapped;
+        firstChunk = newFirst;
+    }
+
+    private void cell(long pos, int symbol) {
+        allocate(pos >> CHUNK_BITS).put((int) (pos & CHUNK_MASK), symbol);
+    }
+
+    private int at(long pos) {
+        IntBuffer c = pos >> CHUNK_BITS == chunkIndex? chunk : chunkAt(pos >> CHUNK_BITS);
+        return c == null? blank : c.get((int) (pos & CHUNK_MASK));
+    }
+
+    private void refresh() {
+        chunkIndex = head >> CHUNK_BITS;
+        long slot = chunkIndex - firstChunk;
+        Chunk c = slot < 0 || slot >= directory.chunks.length? null : directory.chunks[(int) slot];
+        chunk = c == null? null : c.buffer;
+        chunkOwned = c != null && c.refs.get() == 1;
+    }
+
+    private void extendTo(long pos) {
+        if (pos < lo) {
+            if (at(lo) != blank)
+                boundaries++;
+            lo = pos;
+        } else if (pos >= hi) {
+            if (at(hi - 1) != blank)
+                boundaries++;
+            hi = pos + 1;
+        }
+    }
+
+
+
+    public int blank() {
+        return blank;
+    }
+
+    public int read() {
+        return chunk == null? blank : chunk.get((int) (head & CHUNK_MASK));
+    }
+
+    public void write(int symbol) {
+        int old = read();
+        if (old == symbol)
+            return;
+        if (head > lo) {
+            int left = at(head - 1);
+            boundaries += (left != symbol? 1 : 0) - (left != old? 1 : 0);
+        }
+        if (head + 1 < hi) {
+            int right = at(head + 1);
+            boundaries += (right != symbol? 1 : 0) - (right != old? 1 : 0);
+        }
+        if (old == blank)
+            nonBlank++;
+        else if (symbol == blank)
+            nonBlank--;
+        if (!chunkOwned) {
+            chunk = allocate(chunkIndex);
+            chunkOwned = true;
+        }
+        chunk.put((int) (head & CHUNK_MASK), symbol);
+    }
+
+    public void move(int shift) {
+        head += shift;
+        extendTo(head);
+        if (head >> CHUNK_BITS != chunkIndex)
+            refresh();
+    }
+
+    public long size() {
+        return hi - lo;
+    }
+
+    public long head() {
+        return head - lo;
+    }
+
+    public int get(long i) {
+        return at(lo + i);
+    }
+
+    public long allocatedChunks() {
+        return Arrays.stream(directory.chunks).filter(Objects::nonNull).count();
+    }
+
+    public static long mappedChunks() {
+        return FILE.mappedChunks();
+    }
+
+    public long runs() {
+        return boundaries + 1;
+    }
+
+    long nonBlank() {
+        return nonBlank;
+    }
+
+    public Tape copy() {
+        OffHeapTape that = new OffHeapTape(blank);
+        that.directory.chunks = directory.chunks.clone();
+        for (Chunk c : that.directory.chunks) {
+            if (c != null)
+                c.refs.incrementAndGet();
+        }
+        chunkOwned = false;
+        that.firstChunk = firstChunk;
+        that.lo = lo;
+        that.hi = hi;
+        that.head = head;
+        that.boundaries = boundaries;
+        that.nonBlank = nonBlank;
+        that.refresh();
+        return that;
+    }
+
+    @Override
+    public long runLength(long i) {
+        long pos = lo + i, end = Math.min(hi, ((pos >> CHUNK_BITS) + 1) << CHUNK_BITS);
+        IntBuffer c = chunkAt(pos >> CHUNK_BITS);
+        if (c == null)
+            return end - pos;
+        int sym = c.get((int) (pos & CHUNK_MASK));
+        long x = pos + 1;
+        while (x < end && c.get((int) (x & CHUNK_MASK)) == sym)
+            x++;
+        return x - pos;
+    }
+
+    @Override
+    public long runRemaining(int shift) {
+        int symbol = read();
+        long pos = head, n = 0;
+        while (pos >= lo && pos < hi) {
+            IntBuffer c = chunkAt(pos >> CHUNK_BITS);
+            if (c == null && symbol == blank) {
+                long edge = shift > 0? Math.min(hi, ((pos >> CHUNK_BITS) + 1) << CHUNK_BITS) : Math.max(lo, (pos >> CHUNK_BITS) << CHUNK_BITS) - 1;
+                n += Math.abs(edge - pos);
+                pos = edge;
+                continue;
+            }
+            if ((c == null? blank : c.get((int) (pos & CHUNK_MASK))) != symbol)
+                break;
+            n++;
+            pos += shift;
+        }
+        return n;
+    }
+
+    @Override
+    public void skip(long cells, int shift) {
+        head += cells * shift;
+        extendTo(head);
+        refresh();
+    }
+
+
+
+    private static class Chunk {
+
+        private final IntBuffer buffer;
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        Chunk(IntBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void release() {
+            if (refs.decrementAndGet() == 0)
+                FILE.recycle(this);
+        }
+
+    }
+
+    // Cleaner action releasing every chunk of a tape that is no longer reachable.
+    private static class Directory implements Runnable {
+
+        private volatile Chunk[] chunks = new Chunk[MIN_DIRECTORY];
+
+        @Override
+        public void run() {
+            for (Chunk c : chunks) {
+                if (c != null)
+                    c.release();
+            }
+        }
+
+    }
+
+    // Chunks are mapped from an unlinked temporary file rather than allocated with allocateDirect,
+    // so they count against neither the heap nor -XX:MaxDirectMemorySize; the OS pages them as needed.
+    // Released chunks keep their mapping and are handed out again, so the file grows only to the peak number of live chunks.
+    // Copies are released when the Cleaner sees them unreachable; like direct buffer allocation, a file that has grown
+    // since the last attempt requests a collection and briefly waits for released chunks before mapping a new one.
+    private static class ChunkFile {
+
+        private final ArrayDeque<Chunk> free = new ArrayDeque<>();
+        private FileChannel channel;
+        private long mapped;
+        private long reclaimAt = MIN_RECLAIM_CHUNKS;
+
+        synchronized Chunk allocate() {
+            if (free.isEmpty() && mapped >= reclaimAt)
+                reclaim();
+            Chunk c = free.pollLast();
+            if (c != null) {
+                c.refs.set(1);
+                return c;
+            }
+            try {
+                if (channel == null) {
+                    Path path = Files.createTempFile("tape", ".chunks");
+                    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+                    try {
+                        Files.delete(path);
+                    } catch (IOException ignored) {}
+                }
+                return new Chunk(channel.map(FileChannel.MapMode.READ_WRITE, CHUNK_BYTES * mapped++, CHUNK_BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to map tape chunk", e);
+            }
+        }
+
+        private void reclaim() {
+            System.gc();
+            long deadline = System.nanoTime() + RECLAIM_WAIT_MS * 1_000_000;
+            try {
+                for (long left = RECLAIM_WAIT_MS; free.isEmpty() && left > 0; left = (deadline - System.nanoTime()) / 1_000_000)
+                    wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reclaimAt = free.isEmpty()? 2 * mapped : MIN_RECLAIM_CHUNKS;
+        }
+
+        synchronized void recycle(Chunk c) {
+            free.addLast(c);
+            notifyAll();
+        }
+
+        synchronized long mappedChunks() {
+            return mapped;
+        }
+
+    }
+
+}
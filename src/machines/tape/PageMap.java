@@ -0,0 +1,75 @@
+package machines.tape;
+
+import java.util.Arrays;
+
+class PageMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[][] pages = new int[MIN_CAPACITY][];
+    private int size;
+
+    int[] get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); pages[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return pages[i];
+        }
+        return null;
+    }
+
+    void put(long key, int[] page) {
+        if (2 * (size + 1) > keys.length)
+            rehash(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (pages[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        if (pages[i] == null)
+            size++;
+        keys[i] = key;
+        pages[i] = page;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PageMap copy() {
+        PageMap that = new PageMap();
+        that.keys = keys.clone();
+        that.pages = pages.clone();
+        that.size = size;
+        return that;
+    }
+
+    long[] sortedKeys() {
+        long[] sorted = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (pages[i] != null)
+                sorted[n++] = keys[i];
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[][] oldPages = pages;
+        keys = new long[capacity];
+        pages = new int[capacity][];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldPages[i] != null)
+                put(oldKeys[i], oldPages[i]);
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,276 @@
+package machines.tape;
+
+import java.util.Arrays;
+
+public class RunLengthTape implements Tape {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final int blank;
+    private int[] symbols;
+    private long[] lengths;
+    private int count;
+    private long size;
+
+    private int seg;
+    private long off;
+    private long head;
+
+    private int cachedSeg;
+    private long cachedStart;
+
+    public RunLengthTape(int blank, int[] content, int head) {
+        this(blank);
+        if (content.length == 0)
+            append(blank, 1);
+        for (int sym : content)
+            append(sym, 1);
+        seek(head);
+    }
+
+    public RunLengthTape(Tape that) {
+        this(that.blank());
+        for (long i = 0, n; i < that.size(); i += n) {
+            n = that.runLength(i);
+            append(that.get(i), n);
+        }
+        seek(that.head());
+    }
+
+    RunLengthTape(int blank, int[] symbols, long[] lengths, int count, long head) {
+        this(blank);
+        for (int i = 0; i < count; i++) {
+            if (lengths[i] > 0)
+                append(symbols[i], lengths[i]);
+        }
+        if (size == 0)
+            append(blank, 1);
+        seek(head);
+    }
+
+    private RunLengthTape(int blank) {
+        this.blank = blank;
+        symbols = new int[MIN_CAPACITY];
+        lengths = new long[MIN_CAPACITY];
+    }
+
+    private void append(int symbol, long length) {
+        if (count > 0 && symbols[count - 1] == symbol) {
+            lengths[count - 1] += length;
+        } else {
+            insert(count, symbol, length);
+        }
+        size += length;
+    }
+
+    private void insert(int at, int symbol, long length) {
+        if (count == symbols.length) {
+            symbols = Arrays.copyOf(symbols, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        System.arraycopy(symbols, at, symbols, at + 1, count - at);
+        System.arraycopy(lengths, at, lengths, at + 1, count - at);
+        symbols[at] = symbol;
+        lengths[at] = length;
+        count++;
+    }
+
+    private void remove(int at) {
+        System.arraycopy(symbols, at + 1, symbols, at, count - at - 1);
+        System.arraycopy(lengths, at + 1, lengths, at, count - at - 1);
+        count--;
+    }
+
+    private void invalidate() {
+        cachedSeg = 0;
+        cachedStart = 0;
+    }
+
+    private void seek(long pos) {
+        head = pos;
+        seg = 0;
+        while (pos >= lengths[seg]) {
+            pos -= lengths[seg];
+            seg++;
+        }
+        off = pos;
+    }
+
+
+
+    public int blank() {
+        return blank;
+    }
+
+    public int read() {
+        return symbols[seg];
+    }
+
+    public void write(int symbol) {
+        if (symbols[seg] == symbol)
+            return;
+        invalidate();
+        long len = lengths[seg];
+        boolean first = off == 0, last = off == len - 1;
+        boolean joinLeft = first && seg > 0 && symbols[seg - 1] == symbol;
+        boolean joinRight = last && seg + 1 < count && symbols[seg + 1] == symbol;
+
+        if (len == 1) {
+            if (joinLeft && joinRight) {
+                off = lengths[seg - 1];
+                lengths[seg - 1] += 1 + lengths[seg + 1];
+                remove(seg + 1);
+                remove(seg);
+                seg--;
+            } else if (joinLeft) {
+                off = lengths[seg - 1];
+                lengths[seg - 1]++;
+                remove(seg);
+                seg--;
+            } else if (joinRight) {
+                lengths[seg + 1]++;
+                remove(seg);
+            } else {
+                symbols[seg] = symbol;
+            }
+        } else if (first) {
+            lengths[seg]--;
+            if (joinLeft) {
+                seg--;
+                off = lengths[seg];
+                lengths[seg]++;
+            } else {
+                insert(seg, symbol, 1);
+            }
+        } else if (last) {
+            lengths[seg]--;
+            if (joinRight) {
+                lengths[seg + 1]++;
+            } else {
+                insert(seg + 1, symbol, 1);
+            }
+            seg++;
+            off = 0;
+        } else {
+            lengths[seg] = off;
+            insert(seg + 1, symbol, 1);
+            insert(seg + 2, symbols[seg], len - off - 1);
+            seg++;
+            off = 0;
+        }
+    }
+
+    public void move(int shift) {
+        invalidate();
+        if (shift > 0) {
+            off++;
+            head++;
+            if (off == lengths[seg]) {
+                if (seg + 1 == count)
+                    append(blank, 1);
+                if (off == lengths[seg]) {
+                    seg++;
+                    off = 0;
+                }
+            }
+        } else if (shift < 0) {
+            if (off > 0) {
+                off--;
+                head--;
+            } else if (seg > 0) {
+                seg--;
+                off = lengths[seg] - 1;
+                head--;
+            } else {
+                if (symbols[0] == blank)
+                    lengths[0]++;
+                else
+                    insert(0, blank, 1);
+                size++;
+                off = 0;
+                head = 0;
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long head() {
+        return head;
+    }
+
+    public int get(long i) {
+        if (i < cachedStart) {
+            cachedSeg = 0;
+            cachedStart = 0;
+        }
+        while (i - cachedStart >= lengths[cachedSeg]) {
+            cachedStart += lengths[cachedSeg];
+            cachedSeg++;
+        }
+        return symbols[cachedSeg];
+    }
+
+    public long runs() {
+        return count;
+    }
+
+    public Tape copy() {
+        RunLengthTape that = new RunLengthTape(blank);
+        that.symbols = Arrays.copyOf(symbols, Math.max(MIN_CAPACITY, count));
+        that.lengths = Arrays.copyOf(lengths, Math.max(MIN_CAPACITY, count));
+        that.count = count;
+        that.size = size;
+        that.seg = seg;
+        that.off = off;
+        that.head = head;
+        return that;
+    }
+
+    @Override
+    public long runLength(long i) {
+        get(i);
+        return cachedStart + lengths[cachedSeg] - i;
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] cells = new int[Math.toIntExact(size)];
+        int at = 0;
+        for (int s = 0; s < count; s++) {
+            Arrays.fill(cells, at, at + (int) lengths[s], symbols[s]);
+            at += (int) lengths[s];
+        }
+        return cells;
+    }
+
+    @Override
+    public long runRemaining(int shift) {
+        return shift > 0? lengths[seg] - off : off + 1;
+    }
+
+    @Override
+    public void skip(long cells, int shift) {
+        invalidate();
+        if (shift > 0) {
+            long beyond = head + cells - (size - 1);
+            if (beyond > 0)
+                append(blank, beyond);
+            seek(head + cells);
+        } else if (shift < 0) {
+            long beyond = cells - head;
+            if (beyond > 0) {
+                if (symbols[0] == blank)
+                    lengths[0] += beyond;
+                else
+                    insert(0, blank, beyond);
+                size += beyond;
+                head += beyond;
+            }
+            seek(head - cells);
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package machines.tape;
+
+import java.util.Arrays;
+
+public class SparseTape implements Tape {
+
+    public static final int PAGE_BITS = 12;
+    public static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int blank;
+    private PageMap pages = new PageMap();
+    private PageMap owned = new PageMap();
+    private long lo, hi, head;
+
+    private long pageIndex;
+    private int[] page;
+    private boolean pageOwned;
+
+    public SparseTape(int blank, int[] content, int head) {
+        this.blank = blank;
+        hi = Math.max(1, content.length);
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != blank)
+                cell(i, content[i]);
+        }
+        this.head = head;
+        refresh();
+    }
+
+    public SparseTape(Tape that) {
+        blank = that.blank();
+        hi = that.size();
+        for (long i = 0, n; i < hi; i += n) {
+            n = that.runLength(i);
+            int sym = that.get(i);
+            if (sym != blank) {
+                for (long x = i; x < i + n; x++)
+                    cell(x, sym);
+            }
+        }
+        head = that.head();
+        refresh();
+    }
+
+    private SparseTape(int blank) {
+        this.blank = blank;
+    }
+
+    private void cell(long pos, int symbol) {
+        own(pos >> PAGE_BITS)[(int) (pos & PAGE_MASK)] = symbol;
+    }
+
+    private int[] own(long key) {
+        int[] p = pages.get(key);
+        if (p != null && owned.get(key) != null)
+            return p;
+        if (p == null) {
+            p = new int[PAGE_SIZE];
+            Arrays.fill(p, blank);
+        } else {
+            p = p.clone();
+        }
+        pages.put(key, p);
+        owned.put(key, p);
+        return p;
+    }
+
+    private void refresh() {
+        pageIndex = head >> PAGE_BITS;
+        page = pages.get(pageIndex);
+        pageOwned = page != null && owned.get(pageIndex) != null;
+    }
+
+
+
+    public int blank() {
+        return blank;
+    }
+
+    public int read() {
+        return page == null? blank : page[(int) (head & PAGE_MASK)];
+    }
+
+    public void write(int symbol) {
+        if (!pageOwned) {
+            if (read() == symbol)
+                return;
+            page = own(pageIndex);
+            pageOwned = true;
+        }
+        page[(int) (head & PAGE_MASK)] = symbol;
+    }
+
+    public void move(int shift) {
+        head += shift;
+        if (head < lo)
+            lo = head;
+        else if (head >= hi)
+            hi = head + 1;
+        if (head >> PAGE_BITS != pageIndex)
+            refresh();
+    }
+
+    public long size() {
+        return hi - lo;
+    }
+
+    public long head() {
+        return head - lo;
+    }
+
+    public int get(long i) {
+        long pos = lo + i;
+        int[] p = pages.get(pos >> PAGE_BITS);
+        return p == null? blank : p[(int) (pos & PAGE_MASK)];
+    }
+
+    public Tape copy() {
+        SparseTape that = new SparseTape(blank);
+        that.pages = pages.copy();
+        owned = new PageMap();
+        pageOwned = false;
+        that.lo = lo;
+        that.hi = hi;
+        that.head = head;
+        that.refresh();
+        return that;
+    }
+
+    @Override
+    public long runLength(long i) {
+        long pos = lo + i, end = Math.min(hi, ((pos >> PAGE_BITS) + 1) << PAGE_BITS);
+        int[] p = pages.get(pos >> PAGE_BITS);
+        if (p == null)
+            return end - pos;
+        int sym = p[(int) (pos & PAGE_MASK)];
+        long x = pos + 1;
+        while (x < end && p[(int) (x & PAGE_MASK)] == sym)
+            x++;
+        return x - pos;
+    }
+
+    public long allocatedPages() {
+        return pages.size();
+    }
+
+    public long runs() {
+        long runs = 0;
+        long pos = lo;
+        int last = -1;
+        for (long key : pages.sortedKeys()) {
+            long from = Math.max(lo, key << PAGE_BITS), to = Math.min(hi, (key + 1) << PAGE_BITS);
+            if (from >= to)
+                continue;
+            if (pos < from && last != blank) {
+                runs++;
+                last = blank;
+            }
+            int[] p = pages.get(key);
+            for (long x = from; x < to; x++) {
+                int sym = p[(int) (x & PAGE_MASK)];
+                if (sym != last) {
+                    runs++;
+                    last = sym;
+                }
+            }
+            pos = to;
+        }
+        if (pos < hi && last != blank)
+            runs++;
+        return runs;
+    }
+
+    @Override
+    public long runRemaining(int shift) {
+        int symbol = read();
+        long pos = head, n = 0;
+        while (pos >= lo && pos < hi) {
+            int[] p = pages.get(pos >> PAGE_BITS);
+            if (p == null && symbol == blank) {
+                long edge = shift > 0? Math.min(hi, ((pos >> PAGE_BITS) + 1) << PAGE_BITS) : Math.max(lo, (pos >> PAGE_BITS) << PAGE_BITS) - 1;
+                n += Math.abs(edge - pos);
+                pos = edge;
+                continue;
+            }
+            if ((p == null? blank : p[(int) (pos & PAGE_MASK)]) != symbol)
+                break;
+            n++;
+            pos += shift;
+        }
+        return n;
+    }
+
+    @Override
+    public void skip(long cells, int shift) {
+        head += cells * shift;
+        lo = Math.min(lo, head);
+        hi = Math.max(hi, head + 1);
+        refresh();
+    }
+
+}
@@ -0,0 +1,56 @@
+package machines.tape;
+
+import java.util.Arrays;
+
+public interface Tape {
+
+    int blank();
+
+    int read();
+
+    void write(int symbol);
+
+    void move(int shift);
+
+    long size();
+
+    long head();
+
+    int get(long i);
+
+    long runs();
+
+    Tape copy();
+
+    default long runLength(long i) {
+        int symbol = get(i);
+        long n = 1;
+        while (i + n < size() && get(i + n) == symbol)
+            n++;
+        return n;
+    }
+
+    default long runRemaining(int shift) {
+        int symbol = read();
+        long n = 0;
+        for (long i = head(); i >= 0 && i < size() && get(i) == symbol; i += shift)
+            n++;
+        return n;
+    }
+
+    default int[] toArray() {
+        int[] cells = new int[Math.toIntExact(size())];
+        for (int i = 0; i < cells.length; ) {
+            int n = (int) runLength(i);
+            Arrays.fill(cells, i, i + n, get(i));
+            i += n;
+        }
+        return cells;
+    }
+
+    default void skip(long cells, int shift) {
+        for (long i = 0; i < cells; i++)
+            move(shift);
+    }
+
+}
@@ -0,0 +1,74 @@
+package machines.tape;
+
+public class TapeWindow {
+
+    private long before;
+    private long after;
+
+    public void init(Tape tape) {
+        before = 1;
+        after = tape.size() - tape.head();
+        if (after == 0 || cell(tape, tape.head() + after - 1) != tape.blank())
+            after++;
+    }
+
+    // Keeps one blank on each side of the written cells like the list-based display did: a move grows the window
+    // by a cell when the head leaves it and trims one surplus blank from the side the head moved away from.
+    public void moved(Tape tape, int shift) {
+        long head = tape.head();
+        if (shift > 0) {
+            before++;
+            after--;
+            if (after == 0)
+                after = 1;
+            else if (before > 1 && cell(tape, head - before) == tape.blank() && cell(tape, head - before + 1) == tape.blank())
+                before--;
+            return;
+        }
+        if (shift < 0) {
+            after++;
+            before--;
+            if (before == 0)
+                before = 1;
+        }
+        int last = cell(tape, head + after - 1);
+        if (after > 1 && last == tape.blank() && cell(tape, head + after - 2) == tape.blank())
+            after--;
+        else if (last != tape.blank())
+            after++;
+    }
+
+    public void reset(Tape tape) {
+        long head = tape.head(), first = -1, last = -1;
+        for (long i = 0, n; i < tape.size(); i += n) {
+            n = Math.max(1, tape.runLength(i));
+            if (tape.get(i) != tape.blank()) {
+                if (first == -1)
+                    first = i;
+                last = i + n - 1;
+            }
+        }
+        long lo = Math.min(first == -1? head : first, head) - 1, hi = Math.max(first == -1? head : last + 1, head);
+        before = head - lo;
+        after = hi - head + 1;
+    }
+
+
+
+    public long size() {
+        return before + after;
+    }
+
+    public long head() {
+        return before;
+    }
+
+    public int get(Tape tape, long i) {
+        return cell(tape, tape.head() - before + i);
+    }
+
+    private static int cell(Tape tape, long i) {
+        return i < 0 || i >= tape.size()? tape.blank() : tape.get(i);
+    }
+
+}
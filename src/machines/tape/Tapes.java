@@ -0,0 +1,57 @@
+package machines.tape;
+
+public class Tapes {
+
+    public static final int ADAPT_PERIOD = 1 << 16;
+
+    private static final long MIN_RUN_LENGTH_SIZE = 1 << 12;
+    private static final long MIN_SPARSE_SIZE = 16L * SparseTape.PAGE_SIZE;
+    private static final long MIN_OFF_HEAP_SIZE = 1L << 26;
+    private static final int TO_RUN_LENGTH_RATIO = 16;
+    private static final int TO_DENSE_RATIO = 4;
+    private static final int TO_SPARSE_RATIO = 4;
+    private static final int FROM_SPARSE_RATIO = 2;
+
+    public static Tape of(int blank, int[] content, int head) {
+        return adapt(new DenseTape(blank, content, head));
+    }
+
+    public static Tape of(int blank, int[] symbols, long[] lengths, int count, long head) {
+        return adapt(new RunLengthTape(blank, symbols, lengths, count, head));
+    }
+
+    public static Tape adapt(Tape tape) {
+        long size = tape.size();
+        if (tape instanceof DenseTape) {
+            if (size >= MIN_OFF_HEAP_SIZE)
+                return new OffHeapTape(tape);
+            if (size >= MIN_SPARSE_SIZE && ((DenseTape) tape).occupiedPages() * TO_SPARSE_RATIO < pages(size))
+                return new SparseTape(tape);
+            if (size >= MIN_RUN_LENGTH_SIZE && tape.runs() * TO_RUN_LENGTH_RATIO < size)
+                return new RunLengthTape(tape);
+        } else if (tape instanceof RunLengthTape) {
+            if (tape.runs() * TO_DENSE_RATIO > size)
+                return unpack(tape);
+        } else if (tape instanceof SparseTape) {
+            if (((SparseTape) tape).allocatedPages() * FROM_SPARSE_RATIO > pages(size))
+                return unpack(tape);
+        } else if (tape instanceof OffHeapTape) {
+            if (((OffHeapTape) tape).nonBlank() * SparseTape.PAGE_SIZE * TO_SPARSE_RATIO < size)
+                return new SparseTape(tape);
+            if (tape.runs() * TO_RUN_LENGTH_RATIO < size)
+                return new RunLengthTape(tape);
+        }
+        return tape;
+    }
+
+    private static Tape unpack(Tape tape) {
+        if (tape.size() >= MIN_OFF_HEAP_SIZE)
+            return new OffHeapTape(tape);
+        return new DenseTape(tape.blank(), tape.toArray(), Math.toIntExact(tape.head()));
+    }
+
+    private static long pages(long size) {
+        return (size + SparseTape.PAGE_SIZE - 1) / SparseTape.PAGE_SIZE;
+    }
+
+}
@@ -13,6 +13,10 @@ public class Colors {
     public static final Color EXE_LIGHTER_LIME = Color.rgb(0xa0, 0xfd, 0xa0);
 
 
+    public static Color heat(double ratio) {
+        return EXE_NONE.interpolate(EXE_RED, Math.max(0, Math.min(1, ratio)));
+    }
+
     public static void setColor(Node node, Color color) {
         node.setStyle("-fx-background-color: #" + hex(scale255(color.getRed())) + hex(scale255(color.getGreen())) + hex(scale255(color.getBlue())));
     }
@@ -0,0 +1,41 @@
+package misc;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class Debouncer {
+
+    private final ScheduledExecutorService executor;
+    private final Runnable action;
+    private ScheduledFuture<?> pending;
+
+    public Debouncer(Runnable action) {
+        this.action = action;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void on(long timeMillis) {
+        if (pending != null)
+            pending.cancel(true);
+        pending = executor.schedule(action, timeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void now() {
+        on(0);
+    }
+
+    public static boolean isSuperseded() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,171 @@
+package machines;
+
+import machines.convert.ConvertVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public abstract class Check {
+
+    private static final Map<String, MachineType> FOLDERS = Map.of(
+            "tm", MachineType.TURING, "one-tm", MachineType.ONEWAY, "mtm", MachineType.MULTITAPE,
+            "ntm", MachineType.NONDETERMINISTIC, "dfa", MachineType.DFA, "nfa", MachineType.NFA,
+            "dca", MachineType.DCA, "dpda", MachineType.DPDA);
+
+    protected static final long RANDOM_INPUTS = 1000;
+    protected static final int MAX_RANDOM_LENGTH = 32;
+    protected static final long SOURCE_STEPS = 10_000;
+    protected static final long TARGET_STEPS = 100_000;
+    private static final long MAX_EXHAUSTIVE_INPUTS = 1000;
+
+    private final String name = getClass().getSimpleName();
+    private Path descriptions = Path.of("src/desc");
+    private int failures;
+
+    protected int randomMachines = 100;
+    protected long seed = 0;
+
+    protected abstract void check() throws Exception;
+
+    protected void run(String[] args) throws Exception {
+        if (args.length > 0)
+            randomMachines = Integer.parseInt(args[0]);
+        if (args.length > 1)
+            seed = Long.parseLong(args[1]);
+        if (args.length > 2)
+            descriptions = Path.of(args[2]);
+        check();
+        System.out.println(failures == 0? name + ": all checks passed" : name + ": " + failures + " check(s) failed");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+
+
+    protected void pass(String subject, String detail) {
+        System.out.println(name + "\t" + subject + "\tok\t" + detail);
+    }
+
+    protected void fail(String subject, String detail) {
+        failures++;
+        System.out.println(name + "\t" + subject + "\tFAILED\t" + detail);
+    }
+
+    protected void verify(String subject, ConvertVerifier verifier) throws InterruptedException {
+        int symbols = verifier.getAlphabet().length, maxLength = 0;
+        for (long count = 1, layer = symbols; symbols > 0 && maxLength < MAX_RANDOM_LENGTH
+                && count + layer <= MAX_EXHAUSTIVE_INPUTS; layer *= symbols, maxLength++)
+            count += layer;
+        ConvertVerifier.Mismatch mismatch = verifier.maxLength(maxLength).randomInputs(RANDOM_INPUTS, MAX_RANDOM_LENGTH)
+                .steps(SOURCE_STEPS, TARGET_STEPS).seed(seed).verify();
+        if (mismatch != null)
+            fail(subject, mismatch.toString());
+        else
+            pass(subject, verifier.getTested() + " inputs, " + verifier.getUndecided() + " undecided");
+    }
+
+    protected Map<String, Machine> samples(MachineType... types) throws IOException, ParseException {
+        Set<MachineType> wanted = EnumSet.copyOf(Arrays.asList(types));
+        TreeMap<String, Machine> samples = new TreeMap<>();
+        for (Map.Entry<String, MachineType> folder : FOLDERS.entrySet()) {
+            Path dir = descriptions.resolve(folder.getKey());
+            if (!wanted.contains(folder.getValue()) || !Files.isDirectory(dir))
+                continue;
+            List<Path> files;
+            try (Stream<Path> list = Files.list(dir)) {
+                files = list.filter(p -> p.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Machine m = folder.getValue().create();
+                m.parse(Files.readString(file)).throwFirstError();
+                samples.put(folder.getKey() + "/" + file.getFileName(), m);
+            }
+        }
+        return samples;
+    }
+
+    protected static List<String> inputs(Machine m, Random random) {
+        String[] alphabet = new ConvertVerifier(m, m).getAlphabet();
+        List<String> inputs = new ArrayList<>();
+        inputs.add("");
+        for (int i = 1; alphabet.length > 0 && i < RANDOM_INPUTS; i++) {
+            char[] chars = new char[1 + random.nextInt(MAX_RANDOM_LENGTH)];
+            for (int k = 0; k < chars.length; k++)
+                chars[k] = alphabet[random.nextInt(alphabet.length)].charAt(0);
+            inputs.add(new String(chars));
+        }
+        return inputs;
+    }
+
+
+
+    protected static boolean accepts(DFA dfa, String input) {
+        return dfa.run(input, input.length() + 1) == RunVerdict.ACCEPT;
+    }
+
+    protected static DFA dfa(String description) throws ParseException {
+        DFA m = new DFA();
+        m.parse(description).throwFirstError();
+        return m;
+    }
+
+    protected static String randomDFA(Random random, int maxStates, String symbols) {
+        int n = 1 + random.nextInt(maxStates);
+        StringBuilder sb = new StringBuilder("start: s0\naccept:");
+        for (int q = 0; q < n; q++) {
+            if (random.nextInt(3) == 0)
+                sb.append(" s").append(q);
+        }
+        sb.append(" s").append(random.nextInt(n)).append("\n\n");
+        for (int q = 0; q < n; q++) {
+            for (char sym : symbols.toCharArray()) {
+                if (random.nextInt(5) != 0)
+                    sb.append("s").append(q).append(' ').append(sym).append(" -> s").append(random.nextInt(n)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    protected static NFA randomNFA(Random random, int maxStates) throws ParseException {
+        int n = 2 + random.nextInt(maxStates - 1);
+        StringBuilder sb = new StringBuilder("start: q0\naccept:");
+        for (int q = 0; q < n; q++) {
+            if (random.nextInt(4) == 0)
+                sb.append(" q").append(q);
+        }
+        sb.append(" q").append(n - 1).append("\n\n");
+        for (int k = 0; k < 3 * n; k++) {
+            String sym = random.nextInt(5) == 0? "eps" : String.valueOf("abc".charAt(random.nextInt(3)));
+            sb.append("q").append(random.nextInt(n)).append(' ').append(sym).append(" -> q").append(random.nextInt(n)).append('\n');
+        }
+        NFA m = new NFA();
+        m.parse(sb.toString()).throwFirstError();
+        return m;
+    }
+
+    protected static Machine randomTM(Random random) throws ParseException {
+        String[] symbols = {"a", "b", "c", "_"};
+        int n = 2 + random.nextInt(12);
+        StringBuilder sb = new StringBuilder("start: q0\naccept: acc\nreject: rej\nblank: _\n\n");
+        for (int q = 0; q < n; q++) {
+            for (String sym : symbols) {
+                if (random.nextInt(5) == 0)
+                    continue;
+                int to = random.nextInt(n + 2);
+                String dir = random.nextInt(3) != 0? "^" : random.nextBoolean()? "<" : ">";
+                sb.append("q").append(q).append(' ').append(sym).append(" -> ")
+                        .append(to == n? "acc" : to == n + 1? "rej" : "q" + to).append(' ')
+                        .append(symbols[random.nextInt(symbols.length)]).append(' ').append(dir).append('\n');
+            }
+        }
+        Machine m = new TM();
+        m.parse(sb.toString()).throwFirstError();
+        return m;
+    }
+
+}
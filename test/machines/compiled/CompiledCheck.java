@@ -0,0 +1,54 @@
+package machines.compiled;
+
+import machines.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CompiledCheck extends Check {
+
+    public static void main(String[] args) throws Exception {
+        new CompiledCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        if (!MachineCompiler.isAvailable()) {
+            pass("*", "skipped, no system Java compiler");
+            return;
+        }
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.TURING, MachineType.MULTITAPE, MachineType.DFA).entrySet())
+            compare(sample.getKey(), sample.getValue(), random);
+        for (int i = 0; i < randomMachines; i++)
+            compare("random #" + i, randomTM(random), random);
+    }
+
+    private void compare(String subject, Machine m, Random random) {
+        CompiledMachine compiled = MachineCompiler.compile(m);
+        if (compiled == null) {
+            fail(subject, "not compiled");
+            return;
+        }
+        List<String> inputs = inputs(m, random);
+        for (String input : inputs) {
+            m.init(input);
+            long steps = 0;
+            while (steps < SOURCE_STEPS && !m.isInTerminalState()) {
+                m.makeStep();
+                steps++;
+            }
+            RunVerdict verdict = m.isInAcceptState()? RunVerdict.ACCEPT
+                    : m.isInTerminalState()? RunVerdict.REJECT : RunVerdict.UNDECIDED;
+            CompiledRun run = compiled.execute(input, SOURCE_STEPS);
+            if (run.getVerdict() != verdict || run.getSteps() != steps || !run.getState().equals(m.getCurrentState())) {
+                fail(subject, String.format("'%s': interpreted %s after %d steps in %s, compiled %s after %d steps in %s",
+                        input, verdict, steps, m.getCurrentState(), run.getVerdict(), run.getSteps(), run.getState()));
+                return;
+            }
+        }
+        pass(subject, inputs.size() + " inputs");
+    }
+
+}
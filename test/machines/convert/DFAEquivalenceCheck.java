@@ -0,0 +1,85 @@
+package machines.convert;
+
+import machines.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class DFAEquivalenceCheck extends Check {
+
+    private static final int STATES = 4;
+
+    public static void main(String[] args) throws Exception {
+        new DFAEquivalenceCheck().run(args);
+    }
+
+    // The second machine is unrelated, an unrolled copy of the first, or that copy with one transition redirected.
+    // It has at most 2 * STATES states, so a shortest witness is shorter than 3 * STATES
+    // and enumerating every word up to that length decides equivalence exactly.
+    @Override
+    protected void check() throws Exception {
+        for (Map.Entry<String, Machine> sample : samples(MachineType.DFA).entrySet()) {
+            DFA dfa = (DFA) sample.getValue();
+            NFA nfa = (NFA) Convert.convert(dfa, "dfa-nfa");
+            if (!DFAEquivalence.equivalent(dfa, dfa) || !DFAEquivalence.equivalent(dfa, nfa))
+                fail(sample.getKey(), "not equivalent to itself or to its dfa-nfa conversion");
+            else
+                pass(sample.getKey(), "equivalent to itself and to its dfa-nfa conversion");
+        }
+
+        Random random = new Random(seed);
+        for (int i = 0; i < randomMachines; i++) {
+            String description = randomDFA(random, STATES, "ab");
+            String other = i % 3 == 0? randomDFA(random, STATES, "ab")
+                    : i % 3 == 1? doubled(description) : mutated(doubled(description), random);
+            DFA a = dfa(description), b = dfa(other);
+            String witness = DFAEquivalence.distinguish(a, b), shortest = null;
+            for (int len = 0; shortest == null && len < 3 * STATES; len++) {
+                for (int bits = 0; shortest == null && bits < 1 << len; bits++) {
+                    char[] chars = new char[len];
+                    for (int k = 0; k < len; k++)
+                        chars[k] = (bits >> k & 1) == 0? 'a' : 'b';
+                    String word = new String(chars);
+                    if (accepts(a, word) != accepts(b, word))
+                        shortest = word;
+                }
+            }
+            String subject = "random pair #" + i;
+            if (witness == null? shortest != null : shortest == null || witness.length() != shortest.length()
+                    || accepts(a, witness) == accepts(b, witness))
+                fail(subject, String.format("witness %s, shortest by enumeration %s",
+                        witness == null? "none" : "'" + witness + "'", shortest == null? "none" : "'" + shortest + "'"));
+            else
+                pass(subject, witness == null? "equivalent" : "witness of length " + witness.length());
+        }
+    }
+
+
+
+    private static String doubled(String description) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : description.split("\n")) {
+            if (line.startsWith("accept:"))
+                sb.append(line).append(line.substring("accept:".length()).replace(" s", " t"));
+            else if (line.contains(" -> "))
+                sb.append(line.replace(" -> s", " -> t")).append('\n').append(line.replace('s', 't').replace(" -> t", " -> s"));
+            else
+                sb.append(line);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String mutated(String description, Random random) {
+        String[] lines = description.split("\n");
+        int[] transitions = IntStream.range(0, lines.length).filter(i -> lines[i].contains(" -> ")).toArray();
+        if (transitions.length > 0) {
+            int i = transitions[random.nextInt(transitions.length)];
+            String target = lines[transitions[random.nextInt(transitions.length)]].split(" ")[0];
+            lines[i] = lines[i].substring(0, lines[i].indexOf(" -> ") + 4) + target;
+        }
+        return String.join("\n", lines) + "\n";
+    }
+
+}
@@ -0,0 +1,63 @@
+package machines.convert;
+
+import machines.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class DFAProductCheck extends Check {
+
+    public static void main(String[] args) throws Exception {
+        new DFAProductCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        List<DFA> samples = new ArrayList<>();
+        for (Machine sample : samples(MachineType.DFA).values())
+            samples.add((DFA) sample);
+        if (!samples.isEmpty())
+            combine("dfa/*", samples, "0123456789.abx", random);
+        for (int i = 0; i < randomMachines; i++) {
+            List<DFA> dfas = new ArrayList<>();
+            for (int k = 2 + random.nextInt(4); k > 0; k--)
+                dfas.add(dfa(randomDFA(random, 6, "abc")));
+            combine("random group #" + i, dfas, "abcx", random);
+        }
+    }
+
+    private void combine(String subject, List<DFA> dfas, String symbols, Random random) {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            char[] chars = new char[random.nextInt(MAX_RANDOM_LENGTH)];
+            for (int k = 0; k < chars.length; k++)
+                chars[k] = symbols.charAt(random.nextInt(symbols.length()));
+            inputs.add(new String(chars));
+        }
+        BitSet any = new BitSet();
+        for (int k = 0; k < dfas.size(); k++) {
+            if (random.nextBoolean())
+                any.set(k);
+        }
+
+        DFAProduct product = Convert.product(dfas);
+        List<BitSet> vectors = inputs.parallelStream().map(product::classify).collect(Collectors.toList());
+        DFA union = product.toDFA(any);
+        for (int i = 0; i < inputs.size(); i++) {
+            String input = inputs.get(i);
+            BitSet expected = new BitSet();
+            for (int k = 0; k < dfas.size(); k++) {
+                if (accepts(dfas.get(k), input))
+                    expected.set(k);
+            }
+            if (!vectors.get(i).equals(expected) || accepts(union, input) != expected.intersects(any)) {
+                fail(subject, String.format("'%s': classify gives %s, toDFA(%s) gives %s, machines give %s",
+                        input, vectors.get(i), any, accepts(union, input), expected));
+                return;
+            }
+        }
+        pass(subject, dfas.size() + " machines, " + inputs.size() + " inputs, " + product.exploredStates() + " states");
+    }
+
+}
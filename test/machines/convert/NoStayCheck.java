@@ -0,0 +1,126 @@
+package machines.convert;
+
+import machines.*;
+import misc.Graph;
+
+import java.util.*;
+
+import static machines.TransitionDirection.*;
+
+public class NoStayCheck extends Check {
+
+    public static void main(String[] args) throws Exception {
+        new NoStayCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        for (Map.Entry<String, Machine> sample : samples(MachineType.TURING, MachineType.ONEWAY).entrySet())
+            compare(sample.getKey(), sample.getValue(), sample.getValue() instanceof OneTM? "1tm-nostay" : "tm-nostay");
+        Random random = new Random(seed);
+        for (int i = 0; i < randomMachines; i++)
+            compare("random #" + i, randomTM(random), "tm-nostay");
+    }
+
+    private void compare(String subject, Machine m, String code) throws InterruptedException {
+        String converted = Convert.convert(m, code).toString(), expected = reference(m).toString();
+        if (!converted.equals(expected))
+            fail(subject, "differs from the reference conversion:\n" + converted + "\nexpected:\n" + expected);
+        else
+            verify(subject, ConvertVerifier.of(m, code));
+    }
+
+
+
+    // The conversion as it was before the stay chains were resolved along a single path.
+    private static Machine reference(Machine m) {
+        String start = m.getStartState(), accept = m.getAcceptState(), reject = m.getRejectState();
+        String blank = m.getBlank(), bd = m.getBound();
+        Set<String> stSet = m.getStatesSet(), symSet = m.getSymbolsSet();
+        Transitions newTransitions = new Transitions();
+
+        NamespaceTree states = new NamespaceTree();
+        states.addAll("src", "back", "back-2")
+                .to("src").addAll(stSet).also()
+                .to("back").addAll(List.of(accept, reject), st -> "back-to-" + st).also()
+                .to("back-2").addAll(List.of(accept, reject), st -> "back-to-" + st + "-2").also()
+                .add("ill", "inf-loop-left").add("ilr", "inf-loop-right");
+
+        NamespaceTree syms = new NamespaceTree();
+        syms.addAll("src").to("src").addAll(symSet);
+
+        (bd == null? syms.to("src").selectAll() : syms.to("src").selectWithout(bd)).forEachSelected(
+                sym -> newTransitions.set(states.get("ilr"), sym, states.get("ill"), sym, LEFT),
+                sym -> List.of(accept, reject).forEach(
+                        term -> newTransitions.set(states.get("back-2", term), sym, term, sym, LEFT)
+                )
+        );
+        syms.to("src").forAll(
+                sym -> newTransitions.set(states.get("ill"), sym, states.get("ilr"), sym, RIGHT),
+                sym -> List.of(accept, reject).forEach(
+                        term -> newTransitions.set(states.get("back", term), sym, term, sym, RIGHT)
+                )
+        );
+
+        newTransitions.setAll(m.getTransitions().selectByResult(res -> res.getDirection() != STAY));
+
+        HashSet<TransitionArgument> visited = new HashSet<>();
+        Graph<TransitionArgument> stayClosure = new Graph<>();
+        m.getTransitions().select(arg -> !arg.getState().equals(accept) && !arg.getState().equals(reject))
+                .selectByResult(res -> res.getDirection() == STAY).forEach((arg, res) -> stayClosure.addEdge(arg, res.asArgument()));
+
+        for (TransitionArgument arg : stayClosure.getVertices()) {
+            if (!visited.contains(arg)) {
+                TransitionArgument curArg = arg.copy();
+                HashSet<TransitionArgument> curVisited = new HashSet<>(List.of(curArg));
+                TransitionArgument lastArg = stayClosure.edgeFrom(curArg);
+                while (true) {
+                    if (lastArg == null || visited.contains(curArg)) {
+                        TransitionResult res = newTransitions.get(curArg);
+                        if (res != null) {
+                            for (TransitionArgument vis : curVisited)
+                                newTransitions.set(vis, res);
+                        }
+                        break;
+                    } else if (lastArg.getState().equals(accept) || lastArg.getState().equals(reject)) {
+                        TransitionResult res = m.getTransitions().get(curArg);
+                        if (res.getDirection() == STAY) {
+                            for (TransitionArgument vis : curVisited) {
+                                if (vis.getSymbol().equals(bd))
+                                    newTransitions.set(vis, states.get("back-2", res.getState()), vis.getSymbol(), RIGHT);
+                                else
+                                    newTransitions.set(vis, states.get("back", res.getState()), vis.getSymbol(), LEFT);
+                            }
+                        } else {
+                            for (TransitionArgument vis : curVisited)
+                                newTransitions.set(vis, res);
+                        }
+                        break;
+                    } else if (curVisited.contains(lastArg)) {
+                        for (TransitionArgument vis : curVisited) {
+                            if (vis.getSymbol().equals(bd))
+                                newTransitions.set(vis, states.get("ilr"), vis.getSymbol(), RIGHT);
+                            else
+                                newTransitions.set(vis, states.get("ill"), vis.getSymbol(), LEFT);
+                        }
+                        break;
+                    } else {
+                        curArg = lastArg.copy();
+                        curVisited.add(curArg);
+                        lastArg = stayClosure.edgeFrom(curArg);
+                    }
+                }
+                visited.addAll(curVisited);
+            }
+        }
+
+
+        Transitions reachable = newTransitions.removeUnreachableStates(start, accept, reject);
+        if (m instanceof OneTM)
+            return OneTM.with(start, accept, reject, blank, bd, reachable);
+        if (m instanceof TM)
+            return TM.with(start, accept, reject, blank, reachable);
+        throw new AssertionError();
+    }
+
+}
@@ -0,0 +1,36 @@
+package machines.convert;
+
+import machines.*;
+
+import java.util.Map;
+import java.util.Random;
+
+public class SubsetsCheck extends Check {
+
+    private static final int REPEATS = 4;
+
+    public static void main(String[] args) throws Exception {
+        new SubsetsCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.NFA).entrySet())
+            determinize(sample.getKey(), sample.getValue());
+        for (int i = 0; i < randomMachines; i++)
+            determinize("random #" + i, randomNFA(random, 12));
+    }
+
+    private void determinize(String subject, Machine nfa) throws InterruptedException {
+        String first = Convert.convert(nfa, "nfa-dfa").toString();
+        for (int i = 0; i < REPEATS; i++) {
+            if (!Convert.convert(nfa, "nfa-dfa").toString().equals(first)) {
+                fail(subject, "nfa-dfa output differs between runs");
+                return;
+            }
+        }
+        verify(subject, ConvertVerifier.of(nfa, "nfa-dfa"));
+    }
+
+}
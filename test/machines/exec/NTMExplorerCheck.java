@@ -0,0 +1,176 @@
+package machines.exec;
+
+import machines.*;
+import machines.convert.ConvertVerifier;
+
+import java.text.ParseException;
+import java.util.*;
+
+public class NTMExplorerCheck extends Check {
+
+    private static final int MAX_DEPTH = 10;
+    private static final int INPUTS = 50;
+    private static final int MAX_INPUT_LENGTH = 6;
+
+    public static void main(String[] args) throws Exception {
+        new NTMExplorerCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.NONDETERMINISTIC).entrySet())
+            explore(sample.getKey(), (NTM) sample.getValue(), random);
+        for (int i = 0; i < randomMachines; i++)
+            explore("random #" + i, randomNTM(random), random);
+    }
+
+    private void explore(String subject, NTM m, Random random) {
+        String[] alphabet = new ConvertVerifier(m, m).getAlphabet();
+        for (int k = 0; k < INPUTS; k++) {
+            char[] chars = new char[alphabet.length == 0? 0 : random.nextInt(MAX_INPUT_LENGTH + 1)];
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = alphabet[random.nextInt(alphabet.length)].charAt(0);
+            String input = new String(chars);
+            String problem = compare(m, input);
+            if (problem != null) {
+                fail(subject, "'" + input + "': " + problem);
+                return;
+            }
+        }
+        pass(subject, INPUTS + " inputs");
+    }
+
+    private static String compare(NTM m, String input) {
+        Outcome expected = reference(m, input, MAX_DEPTH);
+        for (int threads : new int[] {1, 4}) {
+            NTMExplorer.Result bfs = new NTMExplorer(m).threads(threads).explore(input, MAX_DEPTH);
+            if (bfs.getVerdict() != expected.verdict || bfs.getDepth() != expected.depth)
+                return String.format("BFS on %d thread(s) gives %s at depth %d, reference %s", threads, bfs.getVerdict(), bfs.getDepth(), expected);
+        }
+
+        // Iterative deepening and makeStep report a layer of rejecting configurations as a rejection, which the
+        // reference reports one layer later, when its frontier becomes empty.
+        RunVerdict later = reference(m, input, MAX_DEPTH + 1).verdict;
+        NTMExplorer.Result deepening = new NTMExplorer(m).strategy(NTMExplorer.Strategy.ITERATIVE_DEEPENING).explore(input, MAX_DEPTH);
+        boolean accepts = expected.verdict == RunVerdict.ACCEPT;
+        if ((deepening.getVerdict() == RunVerdict.ACCEPT) != accepts || accepts && deepening.getDepth() != expected.depth
+                || deepening.getVerdict() == RunVerdict.REJECT && later != RunVerdict.REJECT)
+            return String.format("iterative deepening gives %s at depth %d, reference %s", deepening.getVerdict(), deepening.getDepth(), expected);
+
+        m.init(input);
+        long steps = 0;
+        while (steps < MAX_DEPTH && !m.isInTerminalState()) {
+            m.makeStep();
+            steps++;
+        }
+        if (m.isInAcceptState() != accepts || accepts && steps != expected.depth
+                || m.isInRejectState() && later != RunVerdict.REJECT
+                || expected.verdict == RunVerdict.REJECT && !m.isInRejectState())
+            return String.format("makeStep is in %s after %d steps, reference %s", m.getCurrentState(), steps, expected);
+        return null;
+    }
+
+
+
+    private static Outcome reference(NTM m, String input, long maxDepth) {
+        TreeMap<Long, String> cells = new TreeMap<>();
+        for (int i = 0; i < input.length(); i++)
+            cells.put((long) i, Character.toString(input.charAt(i)));
+        Node root = new Node(m.getStartState(), cells, 0);
+        if (root.state.equals(m.getAcceptState()))
+            return new Outcome(RunVerdict.ACCEPT, 0);
+        HashSet<String> seen = new HashSet<>(List.of(root.key()));
+        List<Node> frontier = List.of(root);
+        long depth = 0;
+        while (depth < maxDepth && !frontier.isEmpty()) {
+            depth++;
+            List<Node> next = new ArrayList<>();
+            for (Node c : frontier) {
+                if (c.state.equals(m.getAcceptState()) || c.state.equals(m.getRejectState()))
+                    continue;
+                String sym = c.cells.getOrDefault(c.head, m.getBlank());
+                List<TransitionResult> moves = m.getTransitions().getAll(c.state, sym);
+                if (moves.isEmpty())
+                    moves = List.of(new TransitionResult(m.getRejectState(), sym, TransitionDirection.STAY));
+                for (TransitionResult res : moves) {
+                    TreeMap<Long, String> written = new TreeMap<>(c.cells);
+                    if (res.getSymbol().equals(m.getBlank()))
+                        written.remove(c.head);
+                    else
+                        written.put(c.head, res.getSymbol());
+                    Node n = new Node(res.getState(), written, c.head + res.getDirection().getShift());
+                    if (seen.add(n.key()))
+                        next.add(n);
+                }
+            }
+            for (Node n : next) {
+                if (n.state.equals(m.getAcceptState()))
+                    return new Outcome(RunVerdict.ACCEPT, depth);
+            }
+            frontier = next;
+        }
+        return new Outcome(frontier.isEmpty()? RunVerdict.REJECT : RunVerdict.UNDECIDED, depth);
+    }
+
+    private static NTM randomNTM(Random random) throws ParseException {
+        String[] symbols = {"a", "b", "_"}, dirs = {"<", ">", "^"};
+        int n = 2 + random.nextInt(5);
+        StringBuilder sb = new StringBuilder("start: q0\naccept: acc\nreject: rej\nblank: _\n\n");
+        for (int q = 0; q < n; q++) {
+            for (String sym : symbols) {
+                for (int k = random.nextInt(3); k > 0; k--) {
+                    int to = random.nextInt(n + 2);
+                    sb.append("q").append(q).append(' ').append(sym).append(" -> ")
+                            .append(to == n? "acc" : to == n + 1? "rej" : "q" + to).append(' ')
+                            .append(symbols[random.nextInt(symbols.length)]).append(' ')
+                            .append(dirs[random.nextInt(dirs.length)]).append('\n');
+                }
+            }
+        }
+        NTM m = new NTM();
+        m.parse(sb.toString()).throwFirstError();
+        return m;
+    }
+
+
+
+    private static class Node {
+
+        final String state;
+        final TreeMap<Long, String> cells;
+        final long head;
+
+        Node(String state, TreeMap<Long, String> cells, long head) {
+            this.state = state;
+            this.cells = cells;
+            this.head = head;
+        }
+
+        String key() {
+            StringBuilder sb = new StringBuilder(state);
+            for (Map.Entry<Long, String> cell : cells.entrySet())
+                sb.append(' ').append(cell.getKey() - head).append('=').append(cell.getValue());
+            return sb.toString();
+        }
+
+    }
+
+    private static class Outcome {
+
+        final RunVerdict verdict;
+        final long depth;
+
+        Outcome(RunVerdict verdict, long depth) {
+            this.verdict = verdict;
+            this.depth = depth;
+        }
+
+        @Override
+        public String toString() {
+            return verdict + " at depth " + depth;
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package machines.table;
+
+import machines.*;
+import machines.convert.ConvertVerifier;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class DFATableCheck extends Check {
+
+    private static final int LONG_INPUT = 9 << 20;
+
+    public static void main(String[] args) throws Exception {
+        new DFATableCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.DFA).entrySet())
+            classify(sample.getKey(), (DFA) sample.getValue(), random, true);
+        for (int i = 0; i < randomMachines; i++)
+            classify("random #" + i, dfa(randomDFA(random, 6, "abc")), random, false);
+    }
+
+    private void classify(String subject, DFA dfa, Random random, boolean parallel) {
+        DFATable table = new DFATable(dfa);
+        List<String> inputs = inputs(dfa, random);
+        BitSet verdicts = table.acceptsAll(inputs);
+        for (int i = 0; i < inputs.size(); i++) {
+            String input = inputs.get(i);
+            boolean expected = accepts(dfa, input);
+            String wrong = verdicts.get(i) != expected? "acceptsAll" : table.accepts(input) != expected? "accepts"
+                    : table.acceptsParallel(input) != expected? "acceptsParallel" : null;
+            if (wrong != null) {
+                fail(subject, String.format("'%s': %s gives %s, DFA.run gives %s", input, wrong, !expected, expected));
+                return;
+            }
+        }
+
+        String[] alphabet = new ConvertVerifier(dfa, dfa).getAlphabet();
+        if (parallel && alphabet.length > 0) {
+            char[] chars = new char[LONG_INPUT];
+            for (int k = 0; k < chars.length; k++)
+                chars[k] = alphabet[random.nextInt(alphabet.length)].charAt(0);
+            String input = new String(chars);
+            if (table.acceptsParallel(input) != table.accepts(input)) {
+                fail(subject, LONG_INPUT + "-character input: acceptsParallel disagrees with accepts");
+                return;
+            }
+            inputs.add(input);
+        }
+        pass(subject, inputs.size() + " inputs");
+    }
+
+}
@@ -0,0 +1,76 @@
+package machines.table;
+
+import machines.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class DFATokenizerCheck extends Check {
+
+    private static final int TEXTS = 20;
+    private static final int MAX_TEXT_LENGTH = 200;
+
+    public static void main(String[] args) throws Exception {
+        new DFATokenizerCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.DFA).entrySet())
+            tokenize(sample.getKey(), (DFA) sample.getValue(), "0123456789.abx", random);
+        for (int i = 0; i < randomMachines; i++)
+            tokenize("random #" + i, dfa(randomDFA(random, 6, "abc")), "abcx", random);
+    }
+
+    private void tokenize(String subject, DFA dfa, String symbols, Random random) throws IOException {
+        for (int t = 0; t < TEXTS; t++) {
+            char[] chars = new char[random.nextInt(MAX_TEXT_LENGTH)];
+            for (int k = 0; k < chars.length; k++)
+                chars[k] = symbols.charAt(random.nextInt(symbols.length()));
+            String text = new String(chars);
+            int maxLookahead = random.nextBoolean()? DFATokenizer.DEFAULT_MAX_LOOKAHEAD : 1 + random.nextInt(8);
+
+            List<String> expected = naive(dfa, text, maxLookahead);
+            DFATokenizer tokenizer = new DFATokenizer(dfa).maxLookahead(maxLookahead);
+            List<String> fromText = new ArrayList<>(), fromReader = new ArrayList<>();
+            tokenizer.tokenize(text, (kind, start, end) -> fromText.add(token(start, end, tokenizer.kindName(kind))));
+            tokenizer.tokenize(new StringReader(text), (kind, start, end) -> fromReader.add(token(start, end, tokenizer.kindName(kind))));
+            String wrong = !fromText.equals(expected)? "tokenize(CharSequence) gives " + fromText
+                    : !fromReader.equals(expected)? "tokenize(Reader) gives " + fromReader : null;
+            if (wrong != null) {
+                fail(subject, String.format("'%s' with lookahead %d: %s, maximal munch gives %s", text, maxLookahead, wrong, expected));
+                return;
+            }
+        }
+        pass(subject, TEXTS + " texts");
+    }
+
+    // Longest accepted prefix of at most maxLookahead characters by running the DFA on every prefix;
+    // an unmatched character becomes a token of its own.
+    private static List<String> naive(DFA dfa, String text, int maxLookahead) {
+        List<String> tokens = new ArrayList<>();
+        for (int start = 0; start < text.length(); ) {
+            int end = start + 1;
+            String kind = null;
+            for (int len = 1; len <= Math.min(text.length() - start, maxLookahead); len++) {
+                if (accepts(dfa, text.substring(start, start + len))) {
+                    end = start + len;
+                    kind = dfa.getCurrentState();
+                }
+            }
+            tokens.add(token(start, end, kind));
+            start = end;
+        }
+        return tokens;
+    }
+
+    private static String token(long start, long end, String kind) {
+        return start + "-" + end + ":" + kind;
+    }
+
+}
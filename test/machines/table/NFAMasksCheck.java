@@ -0,0 +1,55 @@
+package machines.table;
+
+import machines.*;
+import misc.Graph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class NFAMasksCheck extends Check {
+
+    public static void main(String[] args) throws Exception {
+        new NFAMasksCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.NFA).entrySet())
+            simulate(sample.getKey(), (NFA) sample.getValue(), random);
+        for (int i = 0; i < randomMachines; i++)
+            simulate("random #" + i, randomNFA(random, 2 * NFAMasks.MAX_STATES), random);
+    }
+
+    private void simulate(String subject, NFA nfa, Random random) {
+        Graph<String> eps = nfa.buildEpsGraph();
+        List<String> inputs = inputs(nfa, random);
+        for (String input : inputs) {
+            TreeSet<String> expected = new TreeSet<>(eps.bfs(nfa.getStartState()));
+            nfa.init(input);
+            for (int i = 0; ; i++) {
+                boolean terminal = i == input.length() || expected.isEmpty();
+                boolean accepting = i == input.length() && expected.stream().anyMatch(nfa.getAcceptStates()::contains);
+                if (!nfa.getCurrentState().equals(String.join(", ", expected))
+                        || nfa.isInTerminalState() != terminal || nfa.isInAcceptState() != accepting) {
+                    fail(subject, String.format("'%s' after %d symbols: NFA in {%s}, reference in {%s}",
+                            input, i, nfa.getCurrentState(), String.join(", ", expected)));
+                    return;
+                }
+                if (terminal)
+                    break;
+                TreeSet<String> next = new TreeSet<>();
+                for (String state : expected) {
+                    for (TransitionResult res : nfa.getTransitions().getAll(state, input.substring(i, i + 1)))
+                        next.addAll(eps.bfs(res.getState()));
+                }
+                expected = next;
+                nfa.makeStep();
+            }
+        }
+        pass(subject, inputs.size() + " inputs");
+    }
+
+}
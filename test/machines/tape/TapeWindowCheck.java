@@ -0,0 +1,99 @@
+package machines.tape;
+
+import machines.*;
+
+import java.util.*;
+
+public class TapeWindowCheck extends Check {
+
+    private static final int INPUTS = 100;
+    private static final int STEPS = 500;
+
+    public static void main(String[] args) throws Exception {
+        new TapeWindowCheck().run(args);
+    }
+
+    @Override
+    protected void check() throws Exception {
+        Random random = new Random(seed);
+        for (Map.Entry<String, Machine> sample : samples(MachineType.TURING, MachineType.MULTITAPE).entrySet())
+            display(sample.getKey(), sample.getValue(), random);
+        for (int i = 0; i < randomMachines; i++)
+            display("random #" + i, randomTM(random), random);
+    }
+
+    private void display(String subject, Machine m, Random random) {
+        List<String> inputs = inputs(m, random);
+        inputs = inputs.subList(0, Math.min(INPUTS, inputs.size()));
+        for (String input : inputs) {
+            m.init(input);
+            List<LinkedList<String>> before = new ArrayList<>(), after = new ArrayList<>();
+            for (int t = 0; t < m.tapes(); t++) {
+                before.add(new LinkedList<>(List.of(m.getBlank())));
+                LinkedList<String> cells = new LinkedList<>();
+                if (t == 0) {
+                    for (char c : input.toCharArray())
+                        cells.add(Character.toString(c));
+                }
+                if (cells.isEmpty() || !cells.getLast().equals(m.getBlank()))
+                    cells.addLast(m.getBlank());
+                after.add(cells);
+            }
+            for (int step = 0; ; step++) {
+                String problem = compare(m, before, after);
+                if (problem != null) {
+                    fail(subject, String.format("'%s' after %d steps: %s", input, step, problem));
+                    return;
+                }
+                if (step == STEPS || m.isInTerminalState())
+                    break;
+                m.makeStep();
+                TransitionResult res = m.getLastTransition() == null? null : m.getTransitions().get(m.getLastTransition());
+                for (int t = 0; t < m.tapes(); t++) {
+                    String written = res == null? after.get(t).getFirst() : res.getSymbols()[t];
+                    moved(before.get(t), after.get(t), written, res == null? 0 : res.getDirections()[t].getShift(), m.getBlank());
+                }
+            }
+        }
+        pass(subject, inputs.size() + " inputs");
+    }
+
+    // The list-based display the machines had before tapes were introduced.
+    private static void moved(LinkedList<String> before, LinkedList<String> after, String written, int shift, String blank) {
+        after.removeFirst();
+        after.addFirst(written);
+        if (shift > 0) {
+            before.addLast(after.removeFirst());
+            if (after.isEmpty())
+                after.add(blank);
+            else if (before.size() > 1 && before.getFirst().equals(blank) && before.get(1).equals(blank))
+                before.removeFirst();
+            return;
+        }
+        if (shift < 0) {
+            after.addFirst(before.removeLast());
+            if (before.isEmpty())
+                before.add(blank);
+        }
+        if (after.size() > 1 && after.getLast().equals(blank) && after.get(after.size() - 2).equals(blank))
+            after.removeLast();
+        else if (!after.getLast().equals(blank))
+            after.addLast(blank);
+    }
+
+    private static String compare(Machine m, List<LinkedList<String>> before, List<LinkedList<String>> after) {
+        for (int t = 0; t < m.tapes(); t++) {
+            List<String> cells = new ArrayList<>(before.get(t));
+            cells.addAll(after.get(t));
+            List<String> shown = new ArrayList<>();
+            for (long i = 0; i < m.getTapeSize(t); i++)
+                shown.add(m.getTapeContent(t, i).isEmpty()? m.getBlank() : m.getTapeContent(t, i));
+            long head = m.getTapeHead(t);
+            if (!shown.equals(cells) || head != before.get(t).size() || !m.getTapeContentPointer(t, head))
+                return String.format("tape %d shows %s with the head at %d, expected %s with the head at %d",
+                        t, shown, head, cells, before.get(t).size());
+        }
+        return null;
+    }
+
+}
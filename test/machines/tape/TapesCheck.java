@@ -0,0 +1,135 @@
+package machines.tape;
+
+import machines.Check;
+
+import java.util.*;
+
+public class TapesCheck extends Check {
+
+    private static final List<String> KINDS = List.of("dense", "run-length", "sparse", "off-heap");
+    private static final int SYMBOLS = 3;
+    private static final int OPERATIONS = 2000;
+    private static final int COPY_CYCLES = 1000;
+    private static final long MAX_MAPPED_CHUNKS = 64;
+
+    public static void main(String[] args) throws Exception {
+        new TapesCheck().run(args);
+    }
+
+    @Override
+    protected void check() {
+        reuse();
+        Random random = new Random(seed);
+        for (int i = 0; i < randomMachines; i++) {
+            for (String kind : KINDS)
+                edit(kind + " #" + i, kind, random);
+        }
+    }
+
+    private void reuse() {
+        OffHeapTape tape = new OffHeapTape(0, new int[] {1, 2, 3}, 0);
+        for (int i = 0; i < COPY_CYCLES; i++) {
+            tape.copy();
+            tape.write(1 + i % 2);
+        }
+        if (OffHeapTape.mappedChunks() > MAX_MAPPED_CHUNKS)
+            fail("off-heap reuse", COPY_CYCLES + " copy and write cycles mapped " + OffHeapTape.mappedChunks() + " chunks");
+        else
+            pass("off-heap reuse", COPY_CYCLES + " copy and write cycles mapped " + OffHeapTape.mappedChunks() + " chunks");
+    }
+
+    private void edit(String subject, String kind, Random random) {
+        int[] content = new int[1 + random.nextInt(30)];
+        for (int k = 0; k < content.length; k++)
+            content[k] = random.nextInt(SYMBOLS);
+        int start = random.nextInt(content.length);
+        Tape tape = kind.equals("dense")? new DenseTape(0, content, start)
+                : kind.equals("run-length")? new RunLengthTape(0, content, start)
+                : kind.equals("sparse")? new SparseTape(0, content, start) : new OffHeapTape(0, content, start);
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int sym : content)
+            cells.add(sym);
+        long head = start;
+
+        Tape copy = null;
+        ArrayList<Integer> copyCells = null;
+        long copyHead = 0;
+        for (int op = 0; op < OPERATIONS; op++) {
+            int choice = random.nextInt(12);
+            if (choice < 4) {
+                int sym = random.nextInt(10) < 6? 0 : random.nextInt(SYMBOLS);
+                tape.write(sym);
+                cells.set((int) head, sym);
+            } else if (choice < 11) {
+                int shift = random.nextBoolean()? 1 : -1;
+                long n = choice < 10? 1 : random.nextInt(300);
+                if (n == 1)
+                    tape.move(shift);
+                else
+                    tape.skip(n, shift);
+                for (long k = 0; k < n; k++) {
+                    head += shift;
+                    if (head < 0) {
+                        cells.add(0, 0);
+                        head = 0;
+                    } else if (head == cells.size()) {
+                        cells.add(0);
+                    }
+                }
+            } else {
+                String problem = copy == null? null : compare(copy, copyCells, copyHead);
+                if (problem != null) {
+                    fail(subject, "copy taken before operation " + op + " changed: " + problem);
+                    return;
+                }
+                copy = tape.copy();
+                copyCells = new ArrayList<>(cells);
+                copyHead = head;
+            }
+            if (op % 50 == 0) {
+                String problem = compare(tape, cells, head);
+                if (problem == null) {
+                    tape = Tapes.adapt(tape);
+                    problem = compare(tape, cells, head);
+                }
+                if (problem != null) {
+                    fail(subject, "after operation " + op + " as " + tape.getClass().getSimpleName() + ": " + problem);
+                    return;
+                }
+            }
+        }
+        String problem = compare(tape, cells, head);
+        if (problem == null && copy != null)
+            problem = compare(copy, copyCells, copyHead);
+        if (problem != null)
+            fail(subject, "at the end: " + problem);
+        else
+            pass(subject, OPERATIONS + " operations, " + cells.size() + " cells");
+    }
+
+    private static String compare(Tape tape, List<Integer> cells, long head) {
+        if (tape.size() != cells.size() || tape.head() != head)
+            return String.format("size %d head %d, expected size %d head %d", tape.size(), tape.head(), cells.size(), head);
+        long runs = cells.isEmpty()? 0 : 1;
+        for (int i = 0; i < cells.size(); i++) {
+            if (tape.get(i) != cells.get(i))
+                return "cell " + i + " is " + tape.get(i) + ", expected " + cells.get(i);
+            if (i > 0 && !cells.get(i).equals(cells.get(i - 1)))
+                runs++;
+        }
+        if (tape.runs() != runs)
+            return tape.runs() + " runs, expected " + runs;
+        for (int i = 0; i < cells.size(); ) {
+            long n = tape.runLength(i);
+            for (int k = 0; k < Math.max(1, n); k++) {
+                if (n < 1 || i + k >= cells.size() || !cells.get(i + k).equals(cells.get(i)))
+                    return "run at " + i + " has wrong length " + n;
+            }
+            i += n;
+        }
+        if (!Arrays.equals(tape.toArray(), cells.stream().mapToInt(Integer::intValue).toArray()))
+            return "toArray differs";
+        return null;
+    }
+
+}